@@ -0,0 +1,54 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of the order-topic messages as done by {@link KafkaProducer} and decoding of the preparation-topic
+ * messages as done by {@link KafkaConsumer}, in both wire formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMessageCodecBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private WireFormat format;
+
+    private OrderMessageCodec codec;
+    private OrderDTO orderDTO;
+    private byte[] message;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), format);
+        orderDTO = new OrderDTO();
+        orderDTO.setId(42L);
+        orderDTO.setOrderId("ORD-01HX3QJ5Z8K2M");
+        orderDTO.setPizzaType("Margherita");
+        orderDTO.setNote("Extra basil");
+        orderDTO.setStatus("IN_PROGRESS");
+        orderDTO.setOrderTime(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000));
+        orderDTO.setUpdateTime(orderDTO.getOrderTime().plusMinutes(5));
+        message = codec.encode(orderDTO);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(orderDTO);
+    }
+
+    @Benchmark
+    public Order decode() throws IOException {
+        return codec.decode(message, format);
+    }
+}
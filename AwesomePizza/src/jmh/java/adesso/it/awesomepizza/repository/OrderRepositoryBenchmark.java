@@ -0,0 +1,78 @@
+package adesso.it.awesomepizza.repository;
+
+import adesso.it.awesomepizza.AwesomePizzaApplication;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.service.SnowflakeOrderIdGenerator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderRepository#findByOrderId} against the in-memory H2 database, with {@code orders} stored orders.
+ * Kafka listeners and the outbox relay are disabled, so only the JPA and JDBC path is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderRepositoryBenchmark {
+
+    @Param({"10000"})
+    private int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderRepository orderRepository;
+    private String[] orderIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(AwesomePizzaApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "spring.kafka.admin.auto-create=false",
+                        "spring.kafka.listener.auto-startup=false",
+                        "outbox.relay-interval-ms=3600000",
+                        "logging.level.root=WARN")
+                .run();
+        orderRepository = context.getBean(OrderRepository.class);
+
+        SnowflakeOrderIdGenerator orderIdGenerator = new SnowflakeOrderIdGenerator(1);
+        orderIds = new String[orders];
+        List<Order> batch = new ArrayList<>();
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order();
+            order.setOrderId(orderIdGenerator.nextOrderId());
+            order.setPizzaType("Margherita");
+            order.setStatus(OrderStatus.PENDING);
+            order.setOrderTime(LocalDateTime.now());
+            orderIds[i] = order.getOrderId();
+            batch.add(order);
+            if (batch.size() == 1000) {
+                orderRepository.saveAll(batch);
+                batch.clear();
+            }
+        }
+        orderRepository.saveAll(batch);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Order> findByOrderId() {
+        return orderRepository.findByOrderId(orderIds[ThreadLocalRandom.current().nextInt(orders)]);
+    }
+}
@@ -0,0 +1,72 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order ID generation and entity to DTO mapping of {@link OrderService}.
+ * The hi/lo generator draws its blocks from memory, so the database round trip once per block is not measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private SnowflakeOrderIdGenerator snowflakeOrderIdGenerator;
+    private HiLoOrderIdGenerator hiLoOrderIdGenerator;
+    private OrderService orderService;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        snowflakeOrderIdGenerator = new SnowflakeOrderIdGenerator(1);
+        hiLoOrderIdGenerator = new HiLoOrderIdGenerator(new InMemoryBlockAllocator(), 1000);
+        orderService = new OrderService(null, null, snowflakeOrderIdGenerator, null, null, null, null, null);
+        order = new Order();
+        order.setId(42L);
+        order.setOrderId(snowflakeOrderIdGenerator.nextOrderId());
+        order.setPizzaType("Margherita");
+        order.setNote("Extra basil");
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        order.setOrderTime(LocalDateTime.now());
+        order.setUpdateTime(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public String snowflakeOrderId() {
+        return snowflakeOrderIdGenerator.nextOrderId();
+    }
+
+    @Benchmark
+    public String hiLoOrderId() {
+        return hiLoOrderIdGenerator.nextOrderId();
+    }
+
+    @Benchmark
+    public OrderDTO convertToDTO() {
+        return orderService.convertToDTO(order);
+    }
+
+    static class InMemoryBlockAllocator extends OrderIdBlockAllocator {
+
+        private long nextHi;
+
+        InMemoryBlockAllocator() {
+            super(new SimpleDriverDataSource());
+        }
+
+        @Override
+        public long allocateBlock() {
+            return nextHi++;
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package adesso.it.awesomepizza.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "order.admission")
+public class AdmissionProperties {
+
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 2;
+    private int maxLimit = 200;
+    private Duration latencyTarget = Duration.ofMillis(250);
+    private double backoffRatio = 0.9;
+    private long maxPendingOrders = 10_000;
+    private double maxProducerBufferUsage = 0.9;
+    private Duration retryAfter = Duration.ofSeconds(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public Duration getLatencyTarget() {
+        return latencyTarget;
+    }
+
+    public void setLatencyTarget(Duration latencyTarget) {
+        this.latencyTarget = latencyTarget;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+
+    public long getMaxPendingOrders() {
+        return maxPendingOrders;
+    }
+
+    public void setMaxPendingOrders(long maxPendingOrders) {
+        this.maxPendingOrders = maxPendingOrders;
+    }
+
+    public double getMaxProducerBufferUsage() {
+        return maxProducerBufferUsage;
+    }
+
+    public void setMaxProducerBufferUsage(double maxProducerBufferUsage) {
+        this.maxProducerBufferUsage = maxProducerBufferUsage;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,69 @@
+package adesso.it.awesomepizza.config;
+
+import adesso.it.awesomepizza.service.HiLoOrderIdGenerator;
+import adesso.it.awesomepizza.service.OrderIdBlockAllocator;
+import adesso.it.awesomepizza.service.OrderIdGenerator;
+import adesso.it.awesomepizza.service.SnowflakeOrderIdGenerator;
+import org.slf4j.Logger;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+@Configuration
+@EnableConfigurationProperties(OrderIdProperties.class)
+public class OrderIdConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdConfig.class);
+
+    @Bean
+    public OrderIdGenerator orderIdGenerator(OrderIdProperties orderIdProperties,
+                                             ObjectProvider<OrderIdBlockAllocator> blockAllocator) {
+        if (orderIdProperties.getGenerator() == OrderIdProperties.Generator.HILO) {
+            logger.info("Using hi/lo order ID generator with block size {}", orderIdProperties.getBlockSize());
+            return new HiLoOrderIdGenerator(blockAllocator.getObject(), orderIdProperties.getBlockSize());
+        }
+        int nodeId = orderIdProperties.getNodeId() != null ? orderIdProperties.getNodeId() : deriveNodeId();
+        logger.info("Using snowflake order ID generator with node id {}", nodeId);
+        return new SnowflakeOrderIdGenerator(nodeId);
+    }
+
+    /**
+     * Block allocator of the hi/lo generator, with a one-connection pool of its own to the application's
+     * database. Blocks are reserved one at a time, and the connection is never taken from the pool that
+     * request transactions hold.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "order.id.generator", havingValue = "hilo")
+    public OrderIdBlockAllocator orderIdBlockAllocator(DataSourceProperties dataSourceProperties) {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("order-id-pool");
+        dataSource.setMaximumPoolSize(1);
+        return new OrderIdBlockAllocator(dataSource);
+    }
+
+    /**
+     * Derives a node ID from host name and process ID when order.id.node-id is not set.
+     * Collisions are unlikely but possible, so clustered deployments should set the node ID explicitly.
+     */
+    private int deriveNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            host = "unknown";
+        }
+        String identity = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        int nodeId = (identity.hashCode() & Integer.MAX_VALUE) % (SnowflakeOrderIdGenerator.MAX_NODE_ID + 1);
+        logger.warn("order.id.node-id is not set, derived node id {} from {}", nodeId, identity);
+        return nodeId;
+    }
+}
@@ -0,0 +1,40 @@
+package adesso.it.awesomepizza.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "order.id")
+public class OrderIdProperties {
+
+    public enum Generator {
+        SNOWFLAKE,
+        HILO
+    }
+
+    private Generator generator = Generator.SNOWFLAKE;
+    private Integer nodeId;
+    private int blockSize = 1000;
+
+    public Generator getGenerator() {
+        return generator;
+    }
+
+    public void setGenerator(Generator generator) {
+        this.generator = generator;
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(Integer nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+}
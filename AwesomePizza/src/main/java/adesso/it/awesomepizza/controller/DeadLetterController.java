@@ -0,0 +1,48 @@
+package adesso.it.awesomepizza.controller;
+
+import adesso.it.awesomepizza.dto.DeadLetterDTO;
+import adesso.it.awesomepizza.dto.DeadLetterPageDTO;
+import adesso.it.awesomepizza.dto.DeadLetterReplayDTO;
+import adesso.it.awesomepizza.service.DeadLetterService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+/**
+ * Lists and replays the messages of the dead-letter topics of 'order-topic' and 'preparation-topic'.
+ */
+@Controller
+@RequestMapping("api/admin/dead-letters")
+public class DeadLetterController {
+
+    DeadLetterService deadLetterService;
+
+    public DeadLetterController(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    @GetMapping
+    public ResponseEntity<DeadLetterPageDTO> getDeadLetters(@RequestParam(required = false) String topic,
+                                                            @RequestParam(defaultValue = "false") boolean replayed,
+                                                            @RequestParam(required = false) Long after,
+                                                            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(deadLetterService.getDeadLetters(topic, replayed, after, size));
+    }
+
+    /**
+     * Replays the dead letters with the given IDs, or else up to {@code admin.dead-letters.max-replay} not yet
+     * replayed dead letters of the given topic, or of all topics.
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<List<DeadLetterDTO>> replayDeadLetters(@RequestBody DeadLetterReplayDTO replayDTO) {
+        if (replayDTO.getIds() != null && replayDTO.getIds().size() > deadLetterService.getMaxReplay()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + deadLetterService.getMaxReplay() + " ids are allowed.");
+        }
+        return ResponseEntity.ok(deadLetterService.replay(replayDTO.getIds(), replayDTO.getTopic()));
+    }
+}
@@ -1,42 +1,233 @@
 package adesso.it.awesomepizza.controller;
 
+import adesso.it.awesomepizza.dto.CacheStatsDTO;
 import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.dto.OrderPageDTO;
+import adesso.it.awesomepizza.dto.OrderQueryPageDTO;
+import adesso.it.awesomepizza.dto.OrderStatsDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.DatabaseException;
+import adesso.it.awesomepizza.service.IdempotencyKeyStore;
+import adesso.it.awesomepizza.service.OrderAdmission;
+import adesso.it.awesomepizza.service.OrderQuery;
 import adesso.it.awesomepizza.service.OrderService;
+import adesso.it.awesomepizza.service.OrderStatistics;
+import adesso.it.awesomepizza.service.OrderStatusBroadcaster;
+import adesso.it.awesomepizza.service.OrderStatusCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
 @Controller
 @RequestMapping("api/orders")
 public class OrderController {
 
     OrderService orderService;
+    OrderStatusCache orderStatusCache;
+    OrderStatusBroadcaster orderStatusBroadcaster;
+    IdempotencyKeyStore idempotencyKeyStore;
+    OrderAdmission orderAdmission;
+    OrderStatistics orderStatistics;
+    ObjectMapper objectMapper;
 
-    public OrderController(OrderService orderService){
+    @Value("${order.events.max-orders:100}")
+    int maxOrdersPerSubscription;
+
+    @Value("${order.bulk.max-orders:100}")
+    int maxOrdersPerBulk;
+
+    public OrderController(OrderService orderService, OrderStatusCache orderStatusCache,
+                           OrderStatusBroadcaster orderStatusBroadcaster, IdempotencyKeyStore idempotencyKeyStore,
+                           OrderAdmission orderAdmission, OrderStatistics orderStatistics, ObjectMapper objectMapper){
         this.orderService=orderService;
+        this.orderStatusCache=orderStatusCache;
+        this.orderStatusBroadcaster=orderStatusBroadcaster;
+        this.idempotencyKeyStore=idempotencyKeyStore;
+        this.orderAdmission=orderAdmission;
+        this.orderStatistics=orderStatistics;
+        this.objectMapper=objectMapper;
     }
 
+    /**
+     * Places new order. Requests repeating the {@code Idempotency-Key} header of an earlier request
+     * get the order placed by that request back instead of a new one, or 422 if they ask for a different
+     * pizza or note. Orders are shed with 429 and Retry-After by {@link OrderAdmission} when the system
+     * is overloaded.
+     */
     @PostMapping("/place-order")
-    public ResponseEntity<OrderDTO> placeOrder(@Valid @RequestBody OrderDTO orderDTO, BindingResult result) {
-        OrderDTO placedOrder = orderService.placeOrder(orderDTO);
+    public ResponseEntity<OrderDTO> placeOrder(@Valid @RequestBody OrderDTO orderDTO, BindingResult result,
+                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > Order.IDEMPOTENCY_KEY_MAX_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Idempotency-Key must have between 1 and " + Order.IDEMPOTENCY_KEY_MAX_LENGTH + " characters.");
+        }
+        OrderDTO placedOrder = idempotencyKey == null
+                ? placeAdmittedOrder(orderDTO, null)
+                : idempotencyKeyStore.placeOnce(idempotencyKey, () -> orderService.findOrderByIdempotencyKey(idempotencyKey)
+                        .orElseGet(() -> placeAdmittedOrder(orderDTO, idempotencyKey)));
+        if (idempotencyKey != null && !(Objects.equals(placedOrder.getPizzaType(), orderDTO.getPizzaType())
+                && Objects.equals(placedOrder.getNote(), orderDTO.getNote()))) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different order.");
+        }
         return ResponseEntity.status(HttpStatus.CREATED).body(placedOrder);
     }
 
+    /**
+     * Takes an admission permit only for an order that is actually placed, so repeated requests with a known
+     * {@code Idempotency-Key} are answered even while new orders are shed. If another instance placed an order
+     * with the same key between the lookup and the commit, the unique key is violated and that order is returned.
+     */
+    private OrderDTO placeAdmittedOrder(OrderDTO orderDTO, String idempotencyKey) {
+        try (OrderAdmission.Permit permit = orderAdmission.admit()) {
+            return orderService.placeOrder(orderDTO, idempotencyKey);
+        } catch (DataIntegrityViolationException | DatabaseException ex) {
+            if (idempotencyKey == null) {
+                throw ex;
+            }
+            return orderService.findOrderByIdempotencyKey(idempotencyKey).orElseThrow(() -> ex);
+        }
+    }
+
+    /**
+     * Places several orders at once, all or none. The whole list is validated before anything is stored.
+     * Admission control counts the request as one placement.
+     */
+    @PostMapping("/place-orders")
+    public ResponseEntity<List<OrderDTO>> placeOrders(@RequestBody List<OrderDTO> orderDTOs) {
+        if (orderDTOs.isEmpty() || orderDTOs.size() > maxOrdersPerBulk) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + maxOrdersPerBulk + " orders are required.");
+        }
+        List<String> errors = new ArrayList<>();
+        for (int i = 0; i < orderDTOs.size(); i++) {
+            OrderDTO orderDTO = orderDTOs.get(i);
+            if (orderDTO == null || orderDTO.getPizzaType() == null || orderDTO.getPizzaType().isBlank()) {
+                errors.add("orders[" + i + "].pizzaType is mandatory");
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.join(", ", errors));
+        }
+        try (OrderAdmission.Permit permit = orderAdmission.admit()) {
+            List<OrderDTO> placedOrders = orderService.placeOrders(orderDTOs);
+            return ResponseEntity.status(HttpStatus.CREATED).body(placedOrders);
+        }
+    }
+
     @GetMapping("/{id}/status")
     public ResponseEntity<OrderDTO> getOrderStatusById(@Valid @PathVariable String id) {
         OrderDTO orderDTO = orderService.getOrderStatusById(id);
         return ResponseEntity.ok(orderDTO);
     }
 
+    @GetMapping(value = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatus(@PathVariable String id) {
+        return orderStatusBroadcaster.subscribe(List.of(id), orderService::getOrderStatusById);
+    }
+
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamOrderStatuses(@RequestParam Set<String> orderIds) {
+        if (orderIds.isEmpty() || orderIds.size() > maxOrdersPerSubscription) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Between 1 and " + maxOrdersPerSubscription + " orderIds are required.");
+        }
+        return orderStatusBroadcaster.subscribe(orderIds, orderService::getOrderStatusById);
+    }
+
+    @GetMapping("/status-cache/stats")
+    public ResponseEntity<CacheStatsDTO> getStatusCacheStats() {
+        return ResponseEntity.ok(orderStatusCache.getStats());
+    }
+
+    /**
+     * Order counts by status and pizza type and the throughput of the last {@code order.stats.window}, served from
+     * {@link OrderStatistics} without a database query.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<OrderStatsDTO> getOrderStats() {
+        return ResponseEntity.ok(orderStatistics.getStats());
+    }
+
     @GetMapping("/all")
     public ResponseEntity<List<OrderDTO>> getOrders() {
         List<OrderDTO> orderDTOs = orderService.getAllOrders();
         return ResponseEntity.ok(orderDTOs);
     }
+
+    @GetMapping
+    public ResponseEntity<OrderPageDTO> getOrdersPage(@RequestParam(required = false) Long after,
+                                                      @RequestParam(required = false) Integer size) {
+        OrderPageDTO page = orderService.getOrdersPage(after, size);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Queries orders by status, optionally pizza type, and a range of their order time ({@code timeField=orderTime},
+     * the default) or update time ({@code timeField=updateTime}), page by page in ascending time order.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<OrderQueryPageDTO> searchOrders(@RequestParam OrderStatus status,
+                                                          @RequestParam(required = false) String pizzaType,
+                                                          @RequestParam(defaultValue = "orderTime") String timeField,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                          @RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer size) {
+        OrderQuery.TimeField field = switch (timeField) {
+            case "orderTime" -> OrderQuery.TimeField.ORDER_TIME;
+            case "updateTime" -> OrderQuery.TimeField.UPDATE_TIME;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "timeField must be orderTime or updateTime.");
+        };
+        OrderQuery.Cursor cursor;
+        try {
+            cursor = after == null ? null : OrderQuery.Cursor.parse(after);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        OrderQueryPageDTO page = orderService.queryOrders(new OrderQuery(status, pizzaType, field, from, to, cursor, size));
+        return ResponseEntity.ok(page);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        ObjectWriter writer = objectMapper.writerFor(OrderDTO.class);
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            orderService.forEachOrder(orderDTO -> {
+                try {
+                    out.write(writer.writeValueAsBytes(orderDTO));
+                    out.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            out.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
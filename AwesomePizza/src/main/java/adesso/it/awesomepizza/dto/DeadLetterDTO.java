@@ -0,0 +1,118 @@
+package adesso.it.awesomepizza.dto;
+
+import adesso.it.awesomepizza.entity.DeadLetter;
+
+import java.time.LocalDateTime;
+
+public class DeadLetterDTO {
+
+    private Long id;
+    private String topic;
+    private String orderId;
+    private String contentType;
+    private byte[] payload;
+    private String exception;
+    private int attempts;
+    private LocalDateTime deadLetteredAt;
+    private LocalDateTime replayedAt;
+
+    public DeadLetterDTO(DeadLetter deadLetter) {
+        this.id = deadLetter.getId();
+        this.topic = deadLetter.getTopic();
+        this.orderId = deadLetter.getOrderId();
+        this.contentType = deadLetter.getContentType();
+        this.payload = deadLetter.getPayload();
+        this.exception = deadLetter.getException();
+        this.attempts = deadLetter.getAttempts();
+        this.deadLetteredAt = deadLetter.getDeadLetteredAt();
+        this.replayedAt = deadLetter.getReplayedAt();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return The message payload, Base64 encoded in JSON.
+     */
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public String getException() {
+        return exception;
+    }
+
+    public void setException(String exception) {
+        this.exception = exception;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getDeadLetteredAt() {
+        return deadLetteredAt;
+    }
+
+    public void setDeadLetteredAt(LocalDateTime deadLetteredAt) {
+        this.deadLetteredAt = deadLetteredAt;
+    }
+
+    public LocalDateTime getReplayedAt() {
+        return replayedAt;
+    }
+
+    public void setReplayedAt(LocalDateTime replayedAt) {
+        this.replayedAt = replayedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterDTO{" +
+                "id=" + id +
+                ", topic='" + topic + '\'' +
+                ", orderId='" + orderId + '\'' +
+                ", exception='" + exception + '\'' +
+                ", attempts=" + attempts +
+                ", deadLetteredAt=" + deadLetteredAt +
+                ", replayedAt=" + replayedAt +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package adesso.it.awesomepizza.dto;
+
+import java.util.List;
+
+public class DeadLetterPageDTO {
+
+    private List<DeadLetterDTO> deadLetters;
+    private Long nextCursor;
+
+    public DeadLetterPageDTO(List<DeadLetterDTO> deadLetters, Long nextCursor) {
+        this.deadLetters = deadLetters;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DeadLetterDTO> getDeadLetters() {
+        return deadLetters;
+    }
+
+    public void setDeadLetters(List<DeadLetterDTO> deadLetters) {
+        this.deadLetters = deadLetters;
+    }
+
+    /**
+     * @return The cursor to pass as {@code after} to fetch the next page, or null on the last page.
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterPageDTO{" +
+                "deadLetters=" + deadLetters +
+                ", nextCursor=" + nextCursor +
+                '}';
+    }
+}
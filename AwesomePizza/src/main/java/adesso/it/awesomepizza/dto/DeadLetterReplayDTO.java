@@ -0,0 +1,37 @@
+package adesso.it.awesomepizza.dto;
+
+import java.util.List;
+
+/**
+ * Selects the dead letters to replay: the given IDs, or else all not yet replayed dead letters of the topic,
+ * or of all topics if no topic is given.
+ */
+public class DeadLetterReplayDTO {
+
+    private List<Long> ids;
+    private String topic;
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetterReplayDTO{" +
+                "ids=" + ids +
+                ", topic='" + topic + '\'' +
+                '}';
+    }
+}
@@ -1,5 +1,7 @@
 package adesso.it.awesomepizza.dto;
 
+import adesso.it.awesomepizza.entity.OrderStatus;
+
 import java.time.LocalDateTime;
 
 public class OrderDTO {
@@ -12,6 +14,36 @@ public class OrderDTO {
     private LocalDateTime orderTime;
     private LocalDateTime updateTime;
 
+    public OrderDTO() {
+    }
+
+    /**
+     * Projection constructor, used by repository queries selecting order DTOs instead of entities.
+     */
+    public OrderDTO(Long id, String orderId, String pizzaType, String note, OrderStatus status,
+                    LocalDateTime orderTime, LocalDateTime updateTime) {
+        this.id = id;
+        this.orderId = orderId;
+        this.pizzaType = pizzaType;
+        this.note = note;
+        this.status = status == null ? null : status.name();
+        this.orderTime = orderTime;
+        this.updateTime = updateTime;
+    }
+
+    /**
+     * Copy constructor, used where an order is handed to or taken from a shared cache.
+     */
+    public OrderDTO(OrderDTO source) {
+        this.id = source.id;
+        this.orderId = source.orderId;
+        this.pizzaType = source.pizzaType;
+        this.note = source.note;
+        this.status = source.status;
+        this.orderTime = source.orderTime;
+        this.updateTime = source.updateTime;
+    }
+
     public Long getId() {
         return id;
     }
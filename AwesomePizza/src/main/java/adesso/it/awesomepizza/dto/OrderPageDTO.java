@@ -0,0 +1,41 @@
+package adesso.it.awesomepizza.dto;
+
+import java.util.List;
+
+public class OrderPageDTO {
+
+    private List<OrderDTO> orders;
+    private Long nextCursor;
+
+    public OrderPageDTO(List<OrderDTO> orders, Long nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * @return The cursor to pass as {@code after} to fetch the next page, or null on the last page.
+     */
+    public Long getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(Long nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPageDTO{" +
+                "orders=" + orders +
+                ", nextCursor=" + nextCursor +
+                '}';
+    }
+}
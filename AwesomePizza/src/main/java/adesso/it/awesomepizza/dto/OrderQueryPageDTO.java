@@ -0,0 +1,41 @@
+package adesso.it.awesomepizza.dto;
+
+import java.util.List;
+
+public class OrderQueryPageDTO {
+
+    private List<OrderDTO> orders;
+    private String nextCursor;
+
+    public OrderQueryPageDTO(List<OrderDTO> orders, String nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<OrderDTO> getOrders() {
+        return orders;
+    }
+
+    public void setOrders(List<OrderDTO> orders) {
+        this.orders = orders;
+    }
+
+    /**
+     * @return The cursor to pass as {@code after} to fetch the next page, or null on the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderQueryPageDTO{" +
+                "orders=" + orders +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,91 @@
+package adesso.it.awesomepizza.dto;
+
+import java.util.Map;
+
+public class OrderStatsDTO {
+
+    private long total;
+    private Map<String, Long> byStatus;
+    private Map<String, Map<String, Long>> byPizzaType;
+    private long windowSeconds;
+    private long placed;
+    private long completed;
+    private double placedPerHour;
+    private double completedPerHour;
+
+    public OrderStatsDTO(long total, Map<String, Long> byStatus, Map<String, Map<String, Long>> byPizzaType,
+                         long windowSeconds, long placed, long completed, double placedPerHour, double completedPerHour) {
+        this.total = total;
+        this.byStatus = byStatus;
+        this.byPizzaType = byPizzaType;
+        this.windowSeconds = windowSeconds;
+        this.placed = placed;
+        this.completed = completed;
+        this.placedPerHour = placedPerHour;
+        this.completedPerHour = completedPerHour;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public void setTotal(long total) {
+        this.total = total;
+    }
+
+    public Map<String, Long> getByStatus() {
+        return byStatus;
+    }
+
+    public void setByStatus(Map<String, Long> byStatus) {
+        this.byStatus = byStatus;
+    }
+
+    public Map<String, Map<String, Long>> getByPizzaType() {
+        return byPizzaType;
+    }
+
+    public void setByPizzaType(Map<String, Map<String, Long>> byPizzaType) {
+        this.byPizzaType = byPizzaType;
+    }
+
+    public long getWindowSeconds() {
+        return windowSeconds;
+    }
+
+    public void setWindowSeconds(long windowSeconds) {
+        this.windowSeconds = windowSeconds;
+    }
+
+    public long getPlaced() {
+        return placed;
+    }
+
+    public void setPlaced(long placed) {
+        this.placed = placed;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(long completed) {
+        this.completed = completed;
+    }
+
+    public double getPlacedPerHour() {
+        return placedPerHour;
+    }
+
+    public void setPlacedPerHour(double placedPerHour) {
+        this.placedPerHour = placedPerHour;
+    }
+
+    public double getCompletedPerHour() {
+        return completedPerHour;
+    }
+
+    public void setCompletedPerHour(double completedPerHour) {
+        this.completedPerHour = completedPerHour;
+    }
+}
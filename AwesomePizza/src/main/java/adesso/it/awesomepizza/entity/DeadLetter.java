@@ -0,0 +1,141 @@
+package adesso.it.awesomepizza.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message from one of the dead-letter topics, kept until it is replayed to its original topic.
+ */
+@Entity
+@Table(name = "dead_letter", indexes = @Index(name = "idx_dead_letter_topic_replayed_at", columnList = "topic, replayedAt, id"))
+public class DeadLetter {
+
+    public static final int EXCEPTION_MAX_LENGTH = 1000;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "dead_letter_seq")
+    @SequenceGenerator(name = "dead_letter_seq", sequenceName = "dead_letter_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false, length = 64)
+    private String topic;
+    private String orderId;
+    @Column(length = 100)
+    private String contentType;
+    @Column(nullable = false, length = 4000)
+    private byte[] payload;
+    @Column(length = EXCEPTION_MAX_LENGTH)
+    private String exception;
+    private int attempts;
+    @Column(nullable = false)
+    private LocalDateTime deadLetteredAt;
+    private LocalDateTime replayedAt;
+
+    public DeadLetter() {
+    }
+
+    public DeadLetter(String topic, String orderId, String contentType, byte[] payload, String exception, int attempts,
+                      LocalDateTime deadLetteredAt) {
+        this.topic = topic;
+        this.orderId = orderId;
+        this.contentType = contentType;
+        this.payload = payload;
+        this.exception = exception;
+        this.attempts = attempts;
+        this.deadLetteredAt = deadLetteredAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * @return The topic the message was originally sent to.
+     */
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    /**
+     * @return The content type header of the message, or null if it had none.
+     */
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public String getException() {
+        return exception;
+    }
+
+    public void setException(String exception) {
+        this.exception = exception;
+    }
+
+    /**
+     * @return The retry tiers the message went through before it was dead-lettered.
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getDeadLetteredAt() {
+        return deadLetteredAt;
+    }
+
+    public void setDeadLetteredAt(LocalDateTime deadLetteredAt) {
+        this.deadLetteredAt = deadLetteredAt;
+    }
+
+    public LocalDateTime getReplayedAt() {
+        return replayedAt;
+    }
+
+    public void setReplayedAt(LocalDateTime replayedAt) {
+        this.replayedAt = replayedAt;
+    }
+
+    @Override
+    public String toString() {
+        return "DeadLetter{" +
+                "id=" + id +
+                ", topic=" + topic +
+                ", orderId=" + orderId +
+                ", contentType=" + contentType +
+                ", attempts=" + attempts +
+                ", deadLetteredAt=" + deadLetteredAt +
+                ", replayedAt=" + replayedAt +
+                '}';
+    }
+}
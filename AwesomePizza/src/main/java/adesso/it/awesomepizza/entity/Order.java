@@ -5,11 +5,17 @@ import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pizza_order")
+@Table(name = "pizza_order", indexes = {
+        @Index(name = "idx_pizza_order_status_order_time", columnList = "status, orderTime, id"),
+        @Index(name = "idx_pizza_order_status_update_time", columnList = "status, updateTime, id")
+})
 public class Order {
 
+    public static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pizza_order_seq")
+    @SequenceGenerator(name = "pizza_order_seq", sequenceName = "pizza_order_seq", allocationSize = 50)
     private Long id;
     @NotBlank(message = "orderId is mandatory")
     @Column(unique = true, nullable = false)
@@ -18,9 +24,13 @@ public class Order {
     @Column(nullable = false)
     private String pizzaType;
     private String note;
-    private String status;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private OrderStatus status;
     private LocalDateTime orderTime;
     private LocalDateTime updateTime;
+    @Column(unique = true, length = Order.IDEMPOTENCY_KEY_MAX_LENGTH)
+    private String idempotencyKey;
 
     public Long getId() {
         return id;
@@ -54,11 +64,11 @@ public class Order {
         this.note = note;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
@@ -78,6 +88,14 @@ public class Order {
         this.updateTime = updateTime;
     }
 
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    public void setIdempotencyKey(String idempotencyKey) {
+        this.idempotencyKey = idempotencyKey;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
@@ -85,7 +103,7 @@ public class Order {
                 ", orderId=" + orderId +
                 ", pizzaType='" + pizzaType + '\'' +
                 ", note='" + note + '\'' +
-                ", status='" + status + '\'' +
+                ", status=" + status +
                 ", orderTime=" + orderTime +
                 ", updateTime=" + updateTime +
                 '}';
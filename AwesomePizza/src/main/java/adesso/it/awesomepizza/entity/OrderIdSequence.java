@@ -0,0 +1,48 @@
+package adesso.it.awesomepizza.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "order_id_sequence")
+public class OrderIdSequence {
+
+    @Id
+    private String name;
+    @Column(nullable = false)
+    private long nextHi;
+
+    public OrderIdSequence() {
+    }
+
+    public OrderIdSequence(String name, long nextHi) {
+        this.name = name;
+        this.nextHi = nextHi;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public long getNextHi() {
+        return nextHi;
+    }
+
+    public void setNextHi(long nextHi) {
+        this.nextHi = nextHi;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderIdSequence{" +
+                "name='" + name + '\'' +
+                ", nextHi=" + nextHi +
+                '}';
+    }
+}
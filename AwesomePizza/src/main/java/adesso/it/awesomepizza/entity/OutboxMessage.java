@@ -0,0 +1,108 @@
+package adesso.it.awesomepizza.entity;
+
+import adesso.it.awesomepizza.kafka.WireFormat;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_outbox", indexes = @Index(name = "idx_order_outbox_sent_at", columnList = "sentAt, id"))
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String orderId;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private WireFormat format;
+    @Column(nullable = false, length = 4000)
+    private byte[] payload;
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+    private LocalDateTime claimedUntil;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(String orderId, WireFormat format, byte[] payload, LocalDateTime createdAt) {
+        this.orderId = orderId;
+        this.format = format;
+        this.payload = payload;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
+
+    public WireFormat getFormat() {
+        return format;
+    }
+
+    public void setFormat(WireFormat format) {
+        this.format = format;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+
+    public void setSentAt(LocalDateTime sentAt) {
+        this.sentAt = sentAt;
+    }
+
+    /**
+     * @return Until when the relay that claimed the message is sending it, or null if it is not claimed.
+     */
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+
+    public void setClaimedUntil(LocalDateTime claimedUntil) {
+        this.claimedUntil = claimedUntil;
+    }
+
+    @Override
+    public String toString() {
+        return "OutboxMessage{" +
+                "id=" + id +
+                ", orderId=" + orderId +
+                ", format=" + format +
+                ", createdAt=" + createdAt +
+                ", sentAt=" + sentAt +
+                ", claimedUntil=" + claimedUntil +
+                '}';
+    }
+}
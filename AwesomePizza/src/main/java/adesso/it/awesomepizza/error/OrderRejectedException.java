@@ -0,0 +1,20 @@
+package adesso.it.awesomepizza.error;
+
+import java.time.Duration;
+
+/**
+ * Thrown when an order is shed by admission control because the system is overloaded.
+ */
+public class OrderRejectedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public OrderRejectedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,252 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Binary encoding of the order messages exchanged with the worker, version 1.
+ * <p>
+ * A message starts with the version byte and a presence byte holding one bit per field, in the order below.
+ * The fields that are present follow:
+ * <ul>
+ *     <li>bit 0 id: varint</li>
+ *     <li>bit 1 orderId, bit 2 pizzaType, bit 3 note: varint byte length followed by the UTF-8 bytes</li>
+ *     <li>bit 4 status: one byte, 1 PENDING, 2 IN_PROGRESS, 3 COMPLETED</li>
+ *     <li>bit 5 orderTime, bit 6 updateTime: varint of the microseconds since the epoch, taking the time as UTC</li>
+ * </ul>
+ * Varints are unsigned little-endian base 128, as in Protocol Buffers. The worker uses the same layout,
+ * so any change needs a new version and content type.
+ */
+public class BinaryOrderCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int ID = 1;
+    private static final int ORDER_ID = 1 << 1;
+    private static final int PIZZA_TYPE = 1 << 2;
+    private static final int NOTE = 1 << 3;
+    private static final int STATUS = 1 << 4;
+    private static final int ORDER_TIME = 1 << 5;
+    private static final int UPDATE_TIME = 1 << 6;
+
+    /**
+     * Encodes an order message.
+     *
+     * @param orderDto The order to be encoded.
+     * @return The encoded message.
+     * @throws IllegalArgumentException if the order has a status that has no code.
+     */
+    public byte[] encode(OrderDTO orderDto) {
+        byte[] orderId = utf8(orderDto.getOrderId());
+        byte[] pizzaType = utf8(orderDto.getPizzaType());
+        byte[] note = utf8(orderDto.getNote());
+        int status = orderDto.getStatus() == null ? 0 : statusCode(OrderStatus.valueOf(orderDto.getStatus()));
+
+        int presence = 0;
+        int size = 2;
+        if (orderDto.getId() != null) {
+            presence |= ID;
+            size += varintSize(orderDto.getId());
+        }
+        if (orderId != null) {
+            presence |= ORDER_ID;
+            size += varintSize(orderId.length) + orderId.length;
+        }
+        if (pizzaType != null) {
+            presence |= PIZZA_TYPE;
+            size += varintSize(pizzaType.length) + pizzaType.length;
+        }
+        if (note != null) {
+            presence |= NOTE;
+            size += varintSize(note.length) + note.length;
+        }
+        if (status != 0) {
+            presence |= STATUS;
+            size += 1;
+        }
+        long orderTime = 0;
+        if (orderDto.getOrderTime() != null) {
+            presence |= ORDER_TIME;
+            orderTime = toEpochMicros(orderDto.getOrderTime());
+            size += varintSize(orderTime);
+        }
+        long updateTime = 0;
+        if (orderDto.getUpdateTime() != null) {
+            presence |= UPDATE_TIME;
+            updateTime = toEpochMicros(orderDto.getUpdateTime());
+            size += varintSize(updateTime);
+        }
+
+        Writer writer = new Writer(size);
+        writer.writeByte(VERSION);
+        writer.writeByte(presence);
+        if ((presence & ID) != 0) {
+            writer.writeVarint(orderDto.getId());
+        }
+        writer.writeBytes(orderId);
+        writer.writeBytes(pizzaType);
+        writer.writeBytes(note);
+        if (status != 0) {
+            writer.writeByte(status);
+        }
+        if ((presence & ORDER_TIME) != 0) {
+            writer.writeVarint(orderTime);
+        }
+        if ((presence & UPDATE_TIME) != 0) {
+            writer.writeVarint(updateTime);
+        }
+        return writer.buffer;
+    }
+
+    /**
+     * Decodes an order message.
+     *
+     * @param message The encoded message.
+     * @return The decoded order.
+     * @throws IOException if the message is not a valid version 1 order message.
+     */
+    public Order decode(byte[] message) throws IOException {
+        Reader reader = new Reader(message);
+        int version = reader.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported order message version: " + version);
+        }
+        int presence = reader.readByte();
+        Order order = new Order();
+        if ((presence & ID) != 0) {
+            order.setId(reader.readVarint());
+        }
+        if ((presence & ORDER_ID) != 0) {
+            order.setOrderId(reader.readString());
+        }
+        if ((presence & PIZZA_TYPE) != 0) {
+            order.setPizzaType(reader.readString());
+        }
+        if ((presence & NOTE) != 0) {
+            order.setNote(reader.readString());
+        }
+        if ((presence & STATUS) != 0) {
+            order.setStatus(status(reader.readByte()));
+        }
+        if ((presence & ORDER_TIME) != 0) {
+            order.setOrderTime(fromEpochMicros(reader.readVarint()));
+        }
+        if ((presence & UPDATE_TIME) != 0) {
+            order.setUpdateTime(fromEpochMicros(reader.readVarint()));
+        }
+        if (reader.position != message.length) {
+            throw new IOException("Unexpected trailing bytes in order message");
+        }
+        return order;
+    }
+
+    private static int statusCode(OrderStatus status) {
+        return switch (status) {
+            case PENDING -> 1;
+            case IN_PROGRESS -> 2;
+            case COMPLETED -> 3;
+        };
+    }
+
+    private static OrderStatus status(int code) throws IOException {
+        return switch (code) {
+            case 1 -> OrderStatus.PENDING;
+            case 2 -> OrderStatus.IN_PROGRESS;
+            case 3 -> OrderStatus.COMPLETED;
+            default -> throw new IOException("Unknown order status code: " + code);
+        };
+    }
+
+    private static long toEpochMicros(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+
+    private static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int varintSize(long value) {
+        return (64 - Long.numberOfLeadingZeros(value | 1) + 6) / 7;
+    }
+
+    private static final class Writer {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Writer(int size) {
+            this.buffer = new byte[size];
+        }
+
+        private void writeByte(int value) {
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] value) {
+            if (value == null) {
+                return;
+            }
+            writeVarint(value.length);
+            System.arraycopy(value, 0, buffer, position, value.length);
+            position += value.length;
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        private Reader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= buffer.length) {
+                throw new IOException("Truncated order message");
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in order message");
+        }
+
+        private String readString() throws IOException {
+            long length = readVarint();
+            if (length > buffer.length - position) {
+                throw new IOException("Truncated order message");
+            }
+            String value = new String(buffer, position, (int) length, StandardCharsets.UTF_8);
+            position += (int) length;
+            return value;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.service.DeadLetterService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Collects the dead-letter topics of 'order-topic', written by the worker, and of 'preparation-topic' into
+ * {@link DeadLetterService}, where they can be listed and replayed.
+ */
+@Component
+public class DeadLetterListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterListener.class);
+
+    private final DeadLetterService deadLetterService;
+
+    public DeadLetterListener(DeadLetterService deadLetterService) {
+        this.deadLetterService = deadLetterService;
+    }
+
+    /**
+     * Stores each poll in one transaction. If that fails, the messages are stored one by one, and the first one that
+     * cannot be stored fails the batch from that record on: the messages stored before it are committed, and the
+     * error handler of {@code deadLetterListenerContainerFactory} retries the rest with back-off until it can be
+     * stored, so no dead letter is dropped.
+     *
+     * @param records The incoming records.
+     * @throws BatchListenerFailedException If a message cannot be stored.
+     */
+    @KafkaListener(topics = {"order-topic-dlt", "preparation-topic-dlt"}, groupId = "awesome-pizza-dead-letter-group",
+            batch = "true", containerFactory = "deadLetterListenerContainerFactory")
+    public void receiveDeadLetters(List<ConsumerRecord<String, byte[]>> records) {
+        try {
+            deadLetterService.store(records);
+        } catch (Exception ex) {
+            logger.warn("Storing {} dead letters failed, storing them one by one.", records.size(), ex);
+            for (int i = 0; i < records.size(); i++) {
+                ConsumerRecord<String, byte[]> record = records.get(i);
+                try {
+                    deadLetterService.store(List.of(record));
+                } catch (Exception recordEx) {
+                    logger.error("Storing dead letter with key {} at {}-{}@{} failed, retrying.",
+                            record.key(), record.topic(), record.partition(), record.offset(), recordEx);
+                    throw new BatchListenerFailedException("Storing dead letter failed", recordEx, i);
+                }
+            }
+        }
+    }
+}
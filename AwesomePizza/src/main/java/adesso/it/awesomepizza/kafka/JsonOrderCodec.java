@@ -0,0 +1,59 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of the order messages exchanged with the worker.
+ * <p>
+ * The reader and writer are built once, from a copy of the application's {@link ObjectMapper}, so the shared
+ * mapper is never modified. Both are immutable and thread-safe, and they cache their serializers for the
+ * message types, so concurrent listener threads can use them without locking.
+ * Timestamps are written as ISO-8601 strings and unknown properties are ignored when reading.
+ */
+@Component
+public class JsonOrderCodec {
+
+    private final ObjectWriter orderDtoWriter;
+    private final ObjectReader orderReader;
+
+    public JsonOrderCodec(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy().registerModule(new JavaTimeModule());
+        this.orderDtoWriter = mapper.writerFor(OrderDTO.class)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.orderReader = mapper.readerFor(Order.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Encodes an order message.
+     *
+     * @param orderDto The order to be encoded.
+     * @return The UTF-8 JSON message.
+     * @throws JsonProcessingException if the order cannot be converted to JSON.
+     */
+    public byte[] encode(OrderDTO orderDto) throws JsonProcessingException {
+        return orderDtoWriter.writeValueAsBytes(orderDto);
+    }
+
+    /**
+     * Decodes an order message.
+     *
+     * @param message The UTF-8 JSON message.
+     * @return The decoded order.
+     * @throws IOException if the message is not a valid order.
+     */
+    public Order decode(byte[] message) throws IOException {
+        return orderReader.readValue(message);
+    }
+}
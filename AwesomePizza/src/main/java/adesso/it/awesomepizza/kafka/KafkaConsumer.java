@@ -2,42 +2,146 @@ package adesso.it.awesomepizza.kafka;
 
 import adesso.it.awesomepizza.entity.Order;
 import adesso.it.awesomepizza.service.OrderService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import adesso.it.awesomepizza.service.OrderStatusBroadcaster;
+import adesso.it.awesomepizza.service.OrderStatusWriteBehind;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
 @Component
 public class KafkaConsumer {
 
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumer.class);
+    static final String RETRY_LISTENER_ID = "preparation-retry-listener";
+
     @Autowired
     private OrderService orderService;
 
-    @Autowired
-    private ObjectMapper objectMapper;
+    private final OrderMessageCodec orderMessageCodec;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final OrderStatusBroadcaster orderStatusBroadcaster;
+    private final OrderStatusWriteBehind orderStatusWriteBehind;
+    private final RetryTopicRouter retryTopicRouter;
+    private final RetryTopicBackoff retryTopicBackoff;
 
-    public KafkaConsumer(OrderService orderService, ObjectMapper objectMapper) {
+    public KafkaConsumer(OrderService orderService, OrderMessageCodec orderMessageCodec,
+                         KeyOrderedDispatcher keyOrderedDispatcher, OrderStatusBroadcaster orderStatusBroadcaster,
+                         OrderStatusWriteBehind orderStatusWriteBehind, RetryTopicRouter retryTopicRouter,
+                         RetryTopicBackoff retryTopicBackoff) {
         this.orderService = orderService;
-        this.objectMapper = objectMapper;
+        this.orderMessageCodec = orderMessageCodec;
+        this.keyOrderedDispatcher = keyOrderedDispatcher;
+        this.orderStatusBroadcaster = orderStatusBroadcaster;
+        this.orderStatusWriteBehind = orderStatusWriteBehind;
+        this.retryTopicRouter = retryTopicRouter;
+        this.retryTopicBackoff = retryTopicBackoff;
     }
 
     /**
-     * Listens to the 'pizza-topic' Kafka topic for new messages.
+     * Listens to the 'preparation-topic' Kafka topic with one consumer per partition and processes each poll
+     * in key-ordered lanes: orders are updated in parallel, while the updates of one order keep their order.
+     * Messages are decoded in the wire format named by their content type header.
+     * Unreadable messages go straight to the dead-letter topic. With {@code order.write-behind.enabled}, the updates
+     * are handed to {@link OrderStatusWriteBehind}, which pushes them to the order's Server-Sent Events subscribers
+     * once written and moves those it fails to write to the retry topics.
+     * Otherwise each lane is written at once: if its batch update fails, its messages are processed one by one,
+     * so a single bad message does not roll back the others. Only applied status changes are pushed to the
+     * subscribers, never stale ones or those of unknown orders. Messages that still fail are moved to the retry topics by {@link RetryTopicRouter}, so they do
+     * not hold up the partition.
      *
-     * @param message The incoming message as a JSON string.
-     * @throws JsonProcessingException if the message cannot be parsed.
+     * @param records The incoming records.
      */
+    @KafkaListener(topics = "preparation-topic", groupId = "awesome-pizza-group", batch = "true",
+            concurrency = "${kafka.topic.partitions:3}")
+    public void receiveMessages(List<ConsumerRecord<String, byte[]>> records) {
+        List<Order> orders = new ArrayList<>(records.size());
+        Map<Order, ConsumerRecord<String, byte[]>> recordsByOrder = new IdentityHashMap<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                Order order = orderMessageCodec.decode(record.value(), WireFormat.fromHeaders(record.headers()));
+                orders.add(order);
+                recordsByOrder.put(order, record);
+            } catch (IOException | IllegalArgumentException ex) {
+                logger.error("Unreadable order message with key {} at {}-{}@{}",
+                        record.key(), record.topic(), record.partition(), record.offset(), ex);
+                retryTopicRouter.deadLetter(record, ex);
+            }
+        }
+        if (!orders.isEmpty()) {
+            keyOrderedDispatcher.dispatch(orders, Order::getOrderId,
+                    lane -> processOrders(lane, (order, ex) -> retryTopicRouter.retry(recordsByOrder.get(order), ex)));
+        }
+    }
 
-    @KafkaListener(topics = "preparation-topic", groupId = "awesome-pizza-group")
-    public void receiveMessage(String message) throws JsonProcessingException {
-
-        // ObjectMapper for converting JSON messages to Order objects
-        objectMapper.registerModule(new JavaTimeModule());
-        Order order = objectMapper.readValue(message, Order.class);
-        orderService.processPizzaOrderMessage(order);
+    /**
+     * Listens to the retry topics of 'preparation-topic', one record at a time with manual acknowledgment.
+     * A message that is not due yet pauses its partition until it is, without holding up the other partitions.
+     * A message failing again moves on to the next retry tier, or to the dead-letter topic after the last one.
+     *
+     * @param record         The incoming record.
+     * @param acknowledgment The acknowledgment of the record.
+     */
+    @KafkaListener(id = RETRY_LISTENER_ID, topics = "#{@retryTopicRouter.retryTopics('preparation-topic')}",
+            groupId = "awesome-pizza-group", containerFactory = "retryListenerContainerFactory",
+            concurrency = "${kafka.topic.partitions:3}")
+    public void receiveRetryMessage(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        long delay = RetryTopicRouter.remainingDelay(record);
+        if (delay > 0) {
+            retryTopicBackoff.pause(RETRY_LISTENER_ID, new TopicPartition(record.topic(), record.partition()), delay);
+            acknowledgment.nack(Duration.ZERO);
+            return;
+        }
+        Order order;
+        try {
+            order = orderMessageCodec.decode(record.value(), WireFormat.fromHeaders(record.headers()));
+        } catch (IOException | IllegalArgumentException ex) {
+            retryTopicRouter.deadLetter(record, ex);
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            if (orderService.processPizzaOrderMessage(order)) {
+                orderStatusBroadcaster.publish(order);
+            }
+        } catch (Exception ex) {
+            retryTopicRouter.retry(record, ex);
+        }
+        acknowledgment.acknowledge();
+    }
 
+    private void processOrders(List<Order> orders, BiConsumer<Order, Exception> onFailure) {
+        if (orderStatusWriteBehind.isEnabled()) {
+            orderStatusWriteBehind.submit(orders, onFailure);
+            return;
+        }
+        try {
+            orderService.processPizzaOrderMessages(orders).forEach(orderStatusBroadcaster::publish);
+        } catch (Exception ex) {
+            logger.warn("Batch of {} order messages failed, processing them one by one.", orders.size(), ex);
+            for (Order order : orders) {
+                try {
+                    if (orderService.processPizzaOrderMessage(order)) {
+                        orderStatusBroadcaster.publish(order);
+                    }
+                } catch (Exception recordEx) {
+                    logger.error("Order message for order with id: {} failed", order.getOrderId(), recordEx);
+                    onFailure.accept(order, recordEx);
+                }
+            }
+        }
     }
 
-}
\ No newline at end of file
+}
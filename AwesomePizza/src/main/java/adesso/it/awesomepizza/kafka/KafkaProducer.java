@@ -1,36 +1,114 @@
 package adesso.it.awesomepizza.kafka;
 import adesso.it.awesomepizza.dto.OrderDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import org.springframework.beans.factory.annotation.Autowired;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 
 @Component
 public class KafkaProducer {
 
-    @Autowired
-    ObjectMapper objectMapper;
-
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final OrderMessageCodec orderMessageCodec;
     private final String topicName = "order-topic";
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
 
-    public KafkaProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, OrderMessageCodec orderMessageCodec,
+                         MeterRegistry meterRegistry) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.orderMessageCodec = orderMessageCodec;
+        this.sendSuccessTimer = sendTimer(meterRegistry, "success");
+        this.sendFailureTimer = sendTimer(meterRegistry, "failure");
+    }
+
+    private Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("kafka.send")
+                .description("Time from sending a message until the broker acknowledges it")
+                .tag("topic", topicName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
-     * Sends the order message to the Kafka topic.
+     * Returns the wire format used by {@link #serialize}.
+     */
+    public WireFormat getWireFormat() {
+        return orderMessageCodec.getWireFormat();
+    }
+
+    /**
+     * Converts the order to the message sent to the Kafka topic, in the configured wire format.
      *
-     * @param orderDto The order to be sent.
+     * @param orderDto The order to be converted.
+     * @return The message payload.
      * @throws JsonProcessingException if the order cannot be converted to JSON.
      */
-    public void sendMessage(OrderDTO orderDto) throws JsonProcessingException {
-        objectMapper.registerModule(new JavaTimeModule());
-        String jsonString = objectMapper.writeValueAsString(orderDto);
-        kafkaTemplate.send(topicName, jsonString);
+    public byte[] serialize(OrderDTO orderDto) throws JsonProcessingException {
+        return orderMessageCodec.encode(orderDto);
+    }
+
+    /**
+     * Returns the share of the producer's send buffer ({@code buffer.memory}) holding records not yet sent
+     * to the broker, between 0 and 1.
+     */
+    public double getBufferUsage() {
+        double totalBytes = 0;
+        double availableBytes = 0;
+        for (Map.Entry<MetricName, ? extends Metric> metric : kafkaTemplate.metrics().entrySet()) {
+            if (!"producer-metrics".equals(metric.getKey().group())) {
+                continue;
+            }
+            if ("buffer-total-bytes".equals(metric.getKey().name())) {
+                totalBytes = ((Number) metric.getValue().metricValue()).doubleValue();
+            } else if ("buffer-available-bytes".equals(metric.getKey().name())) {
+                availableBytes = ((Number) metric.getValue().metricValue()).doubleValue();
+            }
+        }
+        return totalBytes > 0 ? 1 - availableBytes / totalBytes : 0;
+    }
+
+    /**
+     * Sends an already serialized order message to the Kafka topic, keyed by order ID
+     * so that all messages of an order land on the same partition. The time until the broker acknowledges
+     * the message is recorded in the {@code kafka.send} timer.
+     *
+     * Failed sends are not retried here: the outbox keeps the message and sends it again.
+     *
+     * @param orderId The order ID used as record key.
+     * @param format  The format of the payload, sent as content type header.
+     * @param payload The message payload.
+     * @return The future completed when the broker acknowledges the message.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> publish(String orderId, WireFormat format, byte[] payload) {
+        return send(record(orderId, format, payload));
+    }
+
+    private ProducerRecord<String, byte[]> record(String orderId, WireFormat format, byte[] payload) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topicName, orderId, payload);
+        record.headers().add(WireFormat.HEADER, format.headerValue());
+        return record;
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        future.whenComplete((result, ex) -> sample.stop(ex == null ? sendSuccessTimer : sendFailureTimer));
+        return future;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package adesso.it.awesomepizza.kafka;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Processes the records of one poll in parallel lanes while keeping records with the same key in order.
+ * <p>
+ * Each record is assigned to a lane by the hash of its key. Lanes run concurrently and the records of a lane
+ * are handled sequentially, in poll order. {@link #dispatch} returns once every lane is done, so offsets are
+ * only committed after the whole poll has been processed.
+ */
+public class KeyOrderedDispatcher implements AutoCloseable {
+
+    private final Executor executor;
+    private final int lanes;
+
+    public KeyOrderedDispatcher(Executor executor, int lanes) {
+        if (lanes < 1) {
+            throw new IllegalArgumentException("lanes must be positive: " + lanes);
+        }
+        this.executor = executor;
+        this.lanes = lanes;
+    }
+
+    public <T> void dispatch(List<T> records, Function<T, String> keyExtractor, Consumer<List<T>> laneHandler) {
+        List<List<T>> partitioned = partition(records, keyExtractor);
+        if (partitioned.size() == 1) {
+            laneHandler.accept(partitioned.get(0));
+            return;
+        }
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[partitioned.size()];
+        for (int i = 0; i < futures.length; i++) {
+            List<T> lane = partitioned.get(i);
+            futures[i] = CompletableFuture.runAsync(() -> laneHandler.accept(lane), executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Shuts the lane executor down when the application context closes.
+     */
+    @Override
+    public void close() throws Exception {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdown();
+        } else if (executor instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    <T> List<List<T>> partition(List<T> records, Function<T, String> keyExtractor) {
+        List<List<T>> byLane = new ArrayList<>(lanes);
+        for (int i = 0; i < lanes; i++) {
+            byLane.add(new ArrayList<>());
+        }
+        for (T record : records) {
+            String key = keyExtractor.apply(record);
+            int lane = key == null ? 0 : Math.floorMod(key.hashCode(), lanes);
+            byLane.get(lane).add(record);
+        }
+        byLane.removeIf(List::isEmpty);
+        return byLane;
+    }
+}
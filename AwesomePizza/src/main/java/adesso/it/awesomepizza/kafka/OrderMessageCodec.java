@@ -0,0 +1,59 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Encodes outgoing order messages in the configured wire format. Incoming messages are decoded in the format
+ * named by their header, so JSON and binary messages can both be read while the services are switched over.
+ */
+@Component
+public class OrderMessageCodec {
+
+    private final JsonOrderCodec jsonOrderCodec;
+    private final WireFormat wireFormat;
+    private final BinaryOrderCodec binaryOrderCodec = new BinaryOrderCodec();
+
+    public OrderMessageCodec(JsonOrderCodec jsonOrderCodec, @Value("${kafka.wire-format:json}") WireFormat wireFormat) {
+        this.jsonOrderCodec = jsonOrderCodec;
+        this.wireFormat = wireFormat;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    /**
+     * Encodes an order message in the configured wire format.
+     *
+     * @param orderDto The order to be encoded.
+     * @return The encoded message.
+     * @throws JsonProcessingException if the order cannot be converted to JSON.
+     */
+    public byte[] encode(OrderDTO orderDto) throws JsonProcessingException {
+        if (wireFormat == WireFormat.BINARY) {
+            return binaryOrderCodec.encode(orderDto);
+        }
+        return jsonOrderCodec.encode(orderDto);
+    }
+
+    /**
+     * Decodes a received order message.
+     *
+     * @param payload The message payload.
+     * @param format  The format of the payload.
+     * @return The decoded order.
+     * @throws IOException if the payload cannot be read in the given format.
+     */
+    public Order decode(byte[] payload, WireFormat format) throws IOException {
+        if (format == WireFormat.BINARY) {
+            return binaryOrderCodec.decode(payload);
+        }
+        return jsonOrderCodec.decode(payload);
+    }
+}
@@ -0,0 +1,138 @@
+package adesso.it.awesomepizza.kafka;
+
+import adesso.it.awesomepizza.entity.OutboxMessage;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes the messages written to the outbox by {@code OrderService.placeOrder} to the order topic.
+ * <p>
+ * Messages are sent in outbox order, one batch per run. Only the prefix of the batch acknowledged by the broker
+ * is marked as sent, so a failed message and everything after it are retried on the next run (at-least-once).
+ * <p>
+ * Each batch is claimed for {@code outbox.claim-timeout} in a short transaction, so the relays of several instances
+ * publish disjoint batches, and is sent outside of any transaction: no row lock or pooled connection is held while
+ * waiting for the broker. The claim of the unacknowledged rest is released after sending; if the instance dies
+ * instead, the claim expires and another relay sends the batch.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final KafkaProducer kafkaProducer;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration sendTimeout;
+    private final Duration claimTimeout;
+    private final Duration retention;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository,
+                       KafkaProducer kafkaProducer,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${outbox.batch-size:100}") int batchSize,
+                       @Value("${outbox.send-timeout:10s}") Duration sendTimeout,
+                       @Value("${outbox.claim-timeout:1m}") Duration claimTimeout,
+                       @Value("${outbox.retention:1h}") Duration retention) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeout = sendTimeout;
+        this.claimTimeout = claimTimeout;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.relay-interval-ms:200}")
+    public void relayPendingMessages() {
+        int sent;
+        do {
+            sent = relayBatch();
+        } while (sent == batchSize);
+    }
+
+    /**
+     * Claims and publishes the oldest unsent outbox messages not claimed by another instance.
+     *
+     * @return The number of messages acknowledged by the broker and marked as sent.
+     */
+    public int relayBatch() {
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> claimBatch());
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+        try {
+            for (OutboxMessage message : batch) {
+                futures.add(kafkaProducer.publish(message.getOrderId(), message.getFormat(), message.getPayload()));
+            }
+        } catch (Exception ex) {
+            logger.error("Error publishing outbox messages.", ex);
+        }
+
+        List<Long> sentIds = new ArrayList<>(futures.size());
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                sentIds.add(batch.get(i).getId());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException | TimeoutException ex) {
+                logger.error("Error publishing outbox message for order with id: {}", batch.get(i).getOrderId(), ex);
+                break;
+            }
+        }
+        List<Long> unsentIds = batch.subList(sentIds.size(), batch.size()).stream().map(OutboxMessage::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!sentIds.isEmpty()) {
+                outboxMessageRepository.markSent(sentIds, LocalDateTime.now());
+            }
+            if (!unsentIds.isEmpty()) {
+                outboxMessageRepository.releaseClaim(unsentIds);
+            }
+        });
+        if (!sentIds.isEmpty()) {
+            logger.debug("Relayed {} outbox messages.", sentIds.size());
+        }
+        return sentIds.size();
+    }
+
+    /**
+     * Locks the oldest unclaimed messages and claims them for {@code outbox.claim-timeout}.
+     */
+    private List<OutboxMessage> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxMessage> batch = outboxMessageRepository.claimUnsent(now, PageRequest.of(0, batchSize));
+        LocalDateTime claimedUntil = now.plus(claimTimeout);
+        batch.forEach(message -> message.setClaimedUntil(claimedUntil));
+        return batch;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.purge-interval-ms:60000}")
+    public void purgeSentMessages() {
+        int deleted = outboxMessageRepository.deleteSentBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            logger.info("Purged {} sent outbox messages.", deleted);
+        }
+    }
+}
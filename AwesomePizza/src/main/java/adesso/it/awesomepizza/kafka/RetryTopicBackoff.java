@@ -0,0 +1,63 @@
+package adesso.it.awesomepizza.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds back retry topic partitions whose next message is not due yet. The partition is paused in its listener
+ * container, which keeps polling its other partitions, and resumed once the message falls due; the listener
+ * seeks back to the message so it is delivered again then.
+ */
+@Component
+public class RetryTopicBackoff {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryTopicBackoff.class);
+
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final Map<PausedPartition, Long> pausedUntil = new ConcurrentHashMap<>();
+
+    public RetryTopicBackoff(KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry) {
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    }
+
+    /**
+     * Pauses a partition of a listener container until the given delay has passed.
+     *
+     * @param listenerId The ID of the listener.
+     * @param partition  The partition whose next message is not due.
+     * @param delayMs    The milliseconds until the message falls due.
+     */
+    public void pause(String listenerId, TopicPartition partition, long delayMs) {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(listenerId);
+        if (container == null) {
+            return;
+        }
+        pausedUntil.put(new PausedPartition(listenerId, partition), System.currentTimeMillis() + delayMs);
+        container.pausePartition(partition);
+        logger.debug("Paused {} for {} ms", partition, delayMs);
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.retry.resume-interval-ms:200}")
+    public void resumeDuePartitions() {
+        long now = System.currentTimeMillis();
+        pausedUntil.forEach((paused, until) -> {
+            if (until <= now && pausedUntil.remove(paused, until)) {
+                MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(paused.listenerId());
+                if (container != null) {
+                    container.resumePartition(paused.partition());
+                }
+            }
+        });
+    }
+
+    private record PausedPartition(String listenerId, TopicPartition partition) {
+    }
+}
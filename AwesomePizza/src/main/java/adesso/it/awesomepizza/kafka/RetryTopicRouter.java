@@ -0,0 +1,213 @@
+package adesso.it.awesomepizza.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves messages that could not be processed out of the way of the messages behind them. A failed message goes to the
+ * first retry topic of its topic, {@code <topic>-retry-0}, and from there through one retry topic per back-off tier
+ * of {@code kafka.retry.backoff}; a message failing in the last tier, or one that cannot be read at all, goes to the
+ * dead-letter topic {@code <topic>-dlt}. Every tier has a fixed delay, so the messages of a retry topic partition
+ * fall due in order.
+ * <p>
+ * Forwarded messages keep their key, payload and headers and carry the attempt, the time they fall due, their
+ * original topic and the failure in additional headers. Sends wait for the broker, so a message is never acknowledged
+ * on its topic before it is stored in the next one.
+ */
+@Component
+public class RetryTopicRouter {
+
+    public static final String ATTEMPT_HEADER = "retryAttempt";
+    public static final String DUE_AT_HEADER = "retryDueAt";
+    public static final String ORIGINAL_TOPIC_HEADER = "originalTopic";
+    public static final String EXCEPTION_HEADER = "exceptionMessage";
+    private static final Set<String> ROUTING_HEADERS = Set.of(ATTEMPT_HEADER, DUE_AT_HEADER, ORIGINAL_TOPIC_HEADER,
+            EXCEPTION_HEADER);
+    private static final int MAX_EXCEPTION_LENGTH = 1000;
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryTopicRouter.class);
+
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final List<Duration> backoff;
+    private final Duration sendTimeout;
+    private final MeterRegistry meterRegistry;
+
+    public RetryTopicRouter(KafkaTemplate<String, byte[]> kafkaTemplate,
+                            @Value("${kafka.retry.backoff:1s,10s,1m}") List<Duration> backoff,
+                            @Value("${kafka.retry.send-timeout:10s}") Duration sendTimeout,
+                            MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.backoff = List.copyOf(backoff);
+        this.sendTimeout = sendTimeout;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Duration getSendTimeout() {
+        return sendTimeout;
+    }
+
+    public static String retryTopic(String topic, int tier) {
+        return topic + "-retry-" + tier;
+    }
+
+    public static String deadLetterTopic(String topic) {
+        return topic + "-dlt";
+    }
+
+    /**
+     * @return The retry topics of the given topic, one per back-off tier.
+     */
+    public String[] retryTopics(String topic) {
+        List<String> topics = new ArrayList<>(backoff.size());
+        for (int tier = 0; tier < backoff.size(); tier++) {
+            topics.add(retryTopic(topic, tier));
+        }
+        return topics.toArray(String[]::new);
+    }
+
+    /**
+     * Sends a failed message to the retry topic of its next tier, or to the dead-letter topic if it already went
+     * through all tiers.
+     *
+     * @param record The failed message, from its original topic or one of its retry topics.
+     * @param cause  The reason of the failure.
+     * @throws KafkaException if the message cannot be forwarded.
+     */
+    public void retry(ConsumerRecord<String, byte[]> record, Exception cause) {
+        int attempt = intHeader(record.headers(), ATTEMPT_HEADER);
+        if (attempt >= backoff.size()) {
+            deadLetter(record, cause);
+            return;
+        }
+        String topic = originalTopic(record);
+        long dueAt = System.currentTimeMillis() + backoff.get(attempt).toMillis();
+        forward(retryTopic(topic, attempt), topic, record, attempt + 1, dueAt, cause);
+    }
+
+    /**
+     * Sends a message straight to the dead-letter topic, e.g. because it cannot be read.
+     *
+     * @param record The message, from its original topic or one of its retry topics.
+     * @param cause  The reason why it cannot be processed.
+     * @throws KafkaException if the message cannot be forwarded.
+     */
+    public void deadLetter(ConsumerRecord<String, byte[]> record, Exception cause) {
+        String topic = originalTopic(record);
+        forward(deadLetterTopic(topic), topic, record, intHeader(record.headers(), ATTEMPT_HEADER), 0, cause);
+    }
+
+    /**
+     * Sends a dead-lettered message back to its original topic, without the routing headers. Unlike the other
+     * sends, this one does not wait for the broker.
+     *
+     * @param topic       The original topic.
+     * @param key         The record key.
+     * @param payload     The message payload.
+     * @param contentType The content type header of the message, or null if it had none.
+     * @return The future completed when the broker acknowledges the message.
+     */
+    public CompletableFuture<SendResult<String, byte[]>> replay(String topic, String key, byte[] payload,
+                                                                String contentType) {
+        ProducerRecord<String, byte[]> replayed = new ProducerRecord<>(topic, key, payload);
+        if (contentType != null) {
+            replayed.headers().add(WireFormat.HEADER, contentType.getBytes(StandardCharsets.UTF_8));
+        }
+        return kafkaTemplate.send(replayed);
+    }
+
+    /**
+     * @return The milliseconds until a message from a retry topic falls due, or 0 if it is due.
+     */
+    public static long remainingDelay(ConsumerRecord<String, byte[]> record) {
+        Header dueAt = record.headers().lastHeader(DUE_AT_HEADER);
+        if (dueAt == null || dueAt.value() == null || dueAt.value().length != Long.BYTES) {
+            return 0;
+        }
+        return Math.max(0, ByteBuffer.wrap(dueAt.value()).getLong() - System.currentTimeMillis());
+    }
+
+    public static String originalTopic(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(ORIGINAL_TOPIC_HEADER);
+        return header == null ? record.topic() : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    public static String exceptionMessage(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(EXCEPTION_HEADER);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    public static int attempts(ConsumerRecord<String, byte[]> record) {
+        return intHeader(record.headers(), ATTEMPT_HEADER);
+    }
+
+    private void forward(String target, String originalTopic, ConsumerRecord<String, byte[]> record, int attempt,
+                         long dueAt, Exception cause) {
+        Headers headers = new RecordHeaders();
+        for (Header header : record.headers()) {
+            if (!ROUTING_HEADERS.contains(header.key())) {
+                headers.add(header);
+            }
+        }
+        headers.add(ATTEMPT_HEADER, ByteBuffer.allocate(Integer.BYTES).putInt(attempt).array());
+        headers.add(ORIGINAL_TOPIC_HEADER, originalTopic.getBytes(StandardCharsets.UTF_8));
+        headers.add(EXCEPTION_HEADER, describe(cause).getBytes(StandardCharsets.UTF_8));
+        if (dueAt > 0) {
+            headers.add(DUE_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(dueAt).array());
+        }
+        send(new ProducerRecord<>(target, null, record.key(), record.value(), headers));
+        meterRegistry.counter("kafka.listener.rerouted", "topic", originalTopic,
+                "to", target.substring(originalTopic.length() + 1)).increment();
+        logger.warn("Moved message with key {} at {}-{}@{} to {}: {}", record.key(), record.topic(),
+                record.partition(), record.offset(), target, describe(cause));
+    }
+
+    private void send(ProducerRecord<String, byte[]> record) {
+        try {
+            kafkaTemplate.send(record).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while sending to " + record.topic(), ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            throw new KafkaException("Could not send message with key " + record.key() + " to " + record.topic(), ex);
+        }
+    }
+
+    private static int intHeader(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null || header.value() == null || header.value().length != Integer.BYTES) {
+            return 0;
+        }
+        return ByteBuffer.wrap(header.value()).getInt();
+    }
+
+    private static String describe(Exception cause) {
+        Throwable root = cause;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        String description = root.getClass().getName() + ": " + root.getMessage();
+        return description.length() > MAX_EXCEPTION_LENGTH ? description.substring(0, MAX_EXCEPTION_LENGTH) : description;
+    }
+}
@@ -0,0 +1,61 @@
+package adesso.it.awesomepizza.repository;
+
+import adesso.it.awesomepizza.entity.DeadLetter;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface DeadLetterRepository extends JpaRepository<DeadLetter, Long> {
+
+    /**
+     * Retrieves dead letters after the given ID, oldest first, optionally of one original topic only.
+     *
+     * @param topic    The original topic, or null for all topics.
+     * @param replayed Whether to return replayed or not yet replayed dead letters.
+     * @param afterId  The ID after which to start.
+     * @param limit    The maximum number of dead letters.
+     */
+    @Query("select d from DeadLetter d where (:topic is null or d.topic = :topic) " +
+            "and ((:replayed = true and d.replayedAt is not null) or (:replayed = false and d.replayedAt is null)) " +
+            "and d.id > :afterId order by d.id")
+    List<DeadLetter> findPage(@Param("topic") String topic, @Param("replayed") boolean replayed,
+                              @Param("afterId") long afterId, Limit limit);
+
+    /**
+     * Locks the given dead letters that are not replayed yet, oldest first, with {@code SELECT ... FOR UPDATE SKIP
+     * LOCKED}; rows locked by a concurrent replay are skipped. The lock lasts until the calling transaction ends.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select d from DeadLetter d where d.id in :ids and d.replayedAt is null order by d.id")
+    List<DeadLetter> lockUnreplayed(@Param("ids") List<Long> ids);
+
+    /**
+     * Locks the oldest dead letters that are not replayed yet, optionally of one original topic only, as
+     * {@link #lockUnreplayed(List)} does.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select d from DeadLetter d where (:topic is null or d.topic = :topic) and d.replayedAt is null order by d.id")
+    List<DeadLetter> lockUnreplayed(@Param("topic") String topic, Limit limit);
+
+    /**
+     * Hands dead letters claimed for a replay that could not be sent back, so they can be replayed again.
+     */
+    @Transactional
+    @Modifying
+    @Query("update DeadLetter d set d.replayedAt = null where d.id in :ids")
+    int releaseClaim(@Param("ids") List<Long> ids);
+}
@@ -1,13 +1,88 @@
 package adesso.it.awesomepizza.repository;
 
+import adesso.it.awesomepizza.dto.OrderDTO;
 import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     Optional<Order> findByOrderId (String orderId);
 
+    Optional<Order> findByIdempotencyKey(String idempotencyKey);
+
+    long countByStatus(OrderStatus status);
+
+    List<Order> findByOrderIdIn(Collection<String> orderIds);
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Query("select o from Order o order by o.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Order> streamAllByOrderById();
+
+    /**
+     * Keyset page of orders in a status and order time range, served by idx_pizza_order_status_order_time.
+     * Continues after ({@code afterTime}, {@code afterId}); pass {@code from} and 0 for the first page.
+     */
+    @Query("select new adesso.it.awesomepizza.dto.OrderDTO(o.id, o.orderId, o.pizzaType, o.note, o.status, o.orderTime, o.updateTime) " +
+            "from Order o where o.status = :status and (:pizzaType is null or o.pizzaType = :pizzaType) " +
+            "and o.orderTime >= :from and o.orderTime < :to " +
+            "and (o.orderTime > :afterTime or (o.orderTime = :afterTime and o.id > :afterId)) " +
+            "order by o.orderTime, o.id")
+    List<OrderDTO> findPageByStatusAndOrderTime(@Param("status") OrderStatus status, @Param("pizzaType") String pizzaType,
+                                                @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                                Limit limit);
+
+    /**
+     * Keyset page of orders in a status and update time range, served by idx_pizza_order_status_update_time.
+     * Orders never updated have no update time and are not returned.
+     */
+    @Query("select new adesso.it.awesomepizza.dto.OrderDTO(o.id, o.orderId, o.pizzaType, o.note, o.status, o.orderTime, o.updateTime) " +
+            "from Order o where o.status = :status and (:pizzaType is null or o.pizzaType = :pizzaType) " +
+            "and o.updateTime >= :from and o.updateTime < :to " +
+            "and (o.updateTime > :afterTime or (o.updateTime = :afterTime and o.id > :afterId)) " +
+            "order by o.updateTime, o.id")
+    List<OrderDTO> findPageByStatusAndUpdateTime(@Param("status") OrderStatus status, @Param("pizzaType") String pizzaType,
+                                                 @Param("from") LocalDateTime from, @Param("to") LocalDateTime to,
+                                                 @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+                                                 Limit limit);
+
+    @Query("select new adesso.it.awesomepizza.repository.OrderStatusCount(o.status, o.pizzaType, count(o)) " +
+            "from Order o group by o.status, o.pizzaType")
+    List<OrderStatusCount> countByStatusAndPizzaType();
+
+    /**
+     * Order times since the given time, served by idx_pizza_order_status_order_time.
+     */
+    @Query("select o.orderTime from Order o where o.status in :statuses and o.orderTime >= :since")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<LocalDateTime> streamOrderTimesSince(@Param("statuses") Collection<OrderStatus> statuses,
+                                                @Param("since") LocalDateTime since);
+
+    /**
+     * Update times of the orders in a status since the given time, served by idx_pizza_order_status_update_time.
+     */
+    @Query("select o.updateTime from Order o where o.status = :status and o.updateTime >= :since")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<LocalDateTime> streamUpdateTimesSince(@Param("status") OrderStatus status,
+                                                 @Param("since") LocalDateTime since);
+
 }
@@ -0,0 +1,9 @@
+package adesso.it.awesomepizza.repository;
+
+import adesso.it.awesomepizza.entity.OrderStatus;
+
+/**
+ * The number of orders of one pizza type in one status.
+ */
+public record OrderStatusCount(OrderStatus status, String pizzaType, long count) {
+}
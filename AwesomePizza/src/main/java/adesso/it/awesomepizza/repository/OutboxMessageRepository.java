@@ -0,0 +1,51 @@
+package adesso.it.awesomepizza.repository;
+
+import adesso.it.awesomepizza.entity.OutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    /**
+     * Locks the oldest unsent messages that are not claimed, or whose claim expired, with
+     * {@code SELECT ... FOR UPDATE SKIP LOCKED}: rows being claimed by the relay of another instance are skipped.
+     * The lock lasts until the calling transaction ends, which is expected to claim the messages by setting
+     * {@code claimedUntil}.
+     *
+     * @param now The current time; claims ending before it have expired.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("select m from OutboxMessage m where m.sentAt is null and (m.claimedUntil is null or m.claimedUntil < :now) " +
+            "order by m.id")
+    List<OutboxMessage> claimUnsent(@Param("now") LocalDateTime now, Pageable pageable);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.sentAt = :sentAt where m.id in :ids")
+    int markSent(@Param("ids") List<Long> ids, @Param("sentAt") LocalDateTime sentAt);
+
+    @Transactional
+    @Modifying
+    @Query("update OutboxMessage m set m.claimedUntil = null where m.id in :ids")
+    int releaseClaim(@Param("ids") List<Long> ids);
+
+    @Transactional
+    @Modifying
+    @Query("delete from OutboxMessage m where m.sentAt < :sentBefore")
+    int deleteSentBefore(@Param("sentBefore") LocalDateTime sentBefore);
+}
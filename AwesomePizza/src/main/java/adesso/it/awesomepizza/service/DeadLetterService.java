@@ -0,0 +1,206 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.DeadLetterDTO;
+import adesso.it.awesomepizza.dto.DeadLetterPageDTO;
+import adesso.it.awesomepizza.entity.DeadLetter;
+import adesso.it.awesomepizza.error.DatabaseException;
+import adesso.it.awesomepizza.error.ServiceException;
+import adesso.it.awesomepizza.kafka.RetryTopicRouter;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.repository.DeadLetterRepository;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Keeps the messages of the dead-letter topics of 'order-topic' and 'preparation-topic' and replays them to their
+ * original topic on request.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final DeadLetterRepository deadLetterRepository;
+    private final RetryTopicRouter retryTopicRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxReplay;
+
+    public DeadLetterService(DeadLetterRepository deadLetterRepository, RetryTopicRouter retryTopicRouter,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${admin.dead-letters.max-replay:1000}") int maxReplay) {
+        this.deadLetterRepository = deadLetterRepository;
+        this.retryTopicRouter = retryTopicRouter;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxReplay = maxReplay;
+    }
+
+    public int getMaxReplay() {
+        return maxReplay;
+    }
+
+    /**
+     * Stores messages received from a dead-letter topic.
+     *
+     * @param records The dead-lettered messages.
+     * @throws DatabaseException If an error occurs while saving the dead letters.
+     */
+    @Transactional
+    public void store(List<ConsumerRecord<String, byte[]>> records) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<DeadLetter> deadLetters = new ArrayList<>(records.size());
+            for (ConsumerRecord<String, byte[]> record : records) {
+                deadLetters.add(new DeadLetter(RetryTopicRouter.originalTopic(record), record.key(),
+                        contentType(record), record.value() == null ? new byte[0] : record.value(),
+                        truncate(RetryTopicRouter.exceptionMessage(record)), RetryTopicRouter.attempts(record), now));
+            }
+            deadLetterRepository.saveAll(deadLetters);
+            logger.info("Stored {} dead letters.", deadLetters.size());
+        } catch (DataAccessException ex) {
+            logger.error("Error saving the dead letters to the database.", ex);
+            throw new DatabaseException("Error saving the dead letters to the database.", ex);
+        }
+    }
+
+    /**
+     * Retrieves one page of dead letters, oldest first.
+     *
+     * @param topic    The original topic, or null for all topics.
+     * @param replayed Whether to list replayed or not yet replayed dead letters.
+     * @param after    The cursor returned with the previous page, or null for the first page.
+     * @param size     The requested page size, defaults to {@value #DEFAULT_PAGE_SIZE} and is capped at {@value #MAX_PAGE_SIZE}.
+     * @throws DatabaseException If an error occurs while retrieving the dead letters from the database.
+     */
+    @Transactional(readOnly = true)
+    public DeadLetterPageDTO getDeadLetters(String topic, boolean replayed, Long after, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        try {
+            List<DeadLetter> deadLetters = deadLetterRepository.findPage(topic, replayed, after == null ? 0L : after,
+                    Limit.of(pageSize + 1));
+            boolean hasMore = deadLetters.size() > pageSize;
+            List<DeadLetterDTO> page = new ArrayList<>(Math.min(deadLetters.size(), pageSize));
+            for (int i = 0; i < deadLetters.size() && i < pageSize; i++) {
+                page.add(new DeadLetterDTO(deadLetters.get(i)));
+            }
+            Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+            return new DeadLetterPageDTO(page, nextCursor);
+        } catch (DataAccessException ex) {
+            logger.error("Error retrieving the dead letters from the database.", ex);
+            throw new DatabaseException("Error retrieving the dead letters from the database.", ex);
+        }
+    }
+
+    /**
+     * Sends dead letters back to their original topic, oldest first, and marks them as replayed. Dead letters that
+     * were already replayed are skipped. The dead letters are claimed by marking them as replayed in a short
+     * transaction before anything is sent, so concurrent replays of the same dead letters send each of them once.
+     * All messages are then sent at once; the claim of those not acknowledged before the first failure is released,
+     * so they can be replayed again. A crash while sending leaves the claimed dead letters marked as replayed.
+     *
+     * @param ids   The IDs of the dead letters to replay, or null or empty to replay all not yet replayed ones.
+     * @param topic The original topic when replaying all, or null for all topics.
+     * @return The replayed dead letters.
+     * @throws DatabaseException If an error occurs while claiming or releasing the dead letters.
+     * @throws ServiceException  If no dead letter could be sent.
+     */
+    public List<DeadLetterDTO> replay(List<Long> ids, String topic) {
+        List<DeadLetter> deadLetters;
+        try {
+            deadLetters = transactionTemplate.execute(status -> claim(ids, topic));
+        } catch (DataAccessException ex) {
+            logger.error("Error claiming the dead letters in the database.", ex);
+            throw new DatabaseException("Error claiming the dead letters in the database.", ex);
+        }
+        List<CompletableFuture<?>> futures = new ArrayList<>(deadLetters.size());
+        for (DeadLetter deadLetter : deadLetters) {
+            futures.add(send(deadLetter));
+        }
+        long deadline = System.nanoTime() + retryTopicRouter.getSendTimeout().toNanos();
+        List<DeadLetter> replayed = new ArrayList<>(deadLetters.size());
+        Exception failure = null;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                failure = ex;
+                break;
+            } catch (ExecutionException | TimeoutException ex) {
+                logger.error("Error replaying dead letter {} to {}.", deadLetters.get(i).getId(),
+                        deadLetters.get(i).getTopic(), ex);
+                failure = ex;
+                break;
+            }
+            replayed.add(deadLetters.get(i));
+        }
+        if (replayed.size() < deadLetters.size()) {
+            List<Long> unsentIds = deadLetters.subList(replayed.size(), deadLetters.size()).stream()
+                    .map(DeadLetter::getId).toList();
+            try {
+                deadLetterRepository.releaseClaim(unsentIds);
+            } catch (DataAccessException ex) {
+                logger.error("Error releasing {} unsent dead letters in the database.", unsentIds.size(), ex);
+                throw new DatabaseException("Error releasing the unsent dead letters in the database.", ex);
+            }
+        }
+        if (replayed.isEmpty() && failure != null) {
+            throw new ServiceException("An error occurred while replaying the dead letters.", failure);
+        }
+        logger.info("Replayed {} of {} dead letters.", replayed.size(), deadLetters.size());
+        return replayed.stream().map(DeadLetterDTO::new).toList();
+    }
+
+    /**
+     * Locks the dead letters to replay, skipping those locked by a concurrent replay, and marks them as replayed.
+     */
+    private List<DeadLetter> claim(List<Long> ids, String topic) {
+        List<DeadLetter> deadLetters = ids == null || ids.isEmpty()
+                ? deadLetterRepository.lockUnreplayed(topic, Limit.of(maxReplay))
+                : deadLetterRepository.lockUnreplayed(ids);
+        LocalDateTime now = LocalDateTime.now();
+        deadLetters.forEach(deadLetter -> deadLetter.setReplayedAt(now));
+        return deadLetters;
+    }
+
+    private CompletableFuture<?> send(DeadLetter deadLetter) {
+        try {
+            return retryTopicRouter.replay(deadLetter.getTopic(), deadLetter.getOrderId(), deadLetter.getPayload(),
+                    deadLetter.getContentType());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private static String contentType(ConsumerRecord<String, byte[]> record) {
+        Header header = record.headers().lastHeader(WireFormat.HEADER);
+        return header == null || header.value() == null ? null : truncate(new String(header.value(), StandardCharsets.UTF_8), 100);
+    }
+
+    private static String truncate(String exception) {
+        return truncate(exception, DeadLetter.EXCEPTION_MAX_LENGTH);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value == null || value.length() <= maxLength ? value : value.substring(0, maxLength);
+    }
+}
@@ -0,0 +1,46 @@
+package adesso.it.awesomepizza.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Block-allocating (hi/lo) ID generator.
+ * <p>
+ * A block of {@code blockSize} IDs is reserved in the database with one round-trip, and IDs are handed out
+ * from memory until the block is used up. Instances sharing the database never receive the same block,
+ * and a restart simply starts a new block.
+ */
+public class HiLoOrderIdGenerator implements OrderIdGenerator {
+
+    private final OrderIdBlockAllocator blockAllocator;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long limit;
+
+    public HiLoOrderIdGenerator(OrderIdBlockAllocator blockAllocator, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        }
+        this.blockAllocator = blockAllocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String nextOrderId() {
+        return OrderIdGenerator.toOrderId(nextId());
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next == limit) {
+                long hi = blockAllocator.allocateBlock();
+                next = hi * blockSize;
+                limit = next + blockSize;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, expiring window of recently used {@code Idempotency-Key}s and the orders placed for them.
+ * <p>
+ * The first request with a key places the order; concurrent and later requests with the same key wait for it and
+ * get the same order back, without touching the database or Kafka. Keys that fell out of the window are still
+ * resolved by {@link OrderService}, which stores the key with the order under a unique constraint.
+ */
+@Component
+public class IdempotencyKeyStore {
+
+    private final Cache<String, CompletableFuture<OrderDTO>> cache;
+
+    public IdempotencyKeyStore(@Value("${order.idempotency.maximum-size:100000}") long maximumSize,
+                               @Value("${order.idempotency.expire-after-write:1h}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+    }
+
+    /**
+     * Places the order of an idempotency key once.
+     *
+     * @param idempotencyKey The key sent by the client.
+     * @param placement      Places the order; only called if the key is not in the window.
+     * @return The order placed for the key. A failed placement is not remembered, so the client can retry it.
+     */
+    public OrderDTO placeOnce(String idempotencyKey, Supplier<OrderDTO> placement) {
+        CompletableFuture<OrderDTO> placed = new CompletableFuture<>();
+        CompletableFuture<OrderDTO> existing = cache.asMap().putIfAbsent(idempotencyKey, placed);
+        if (existing != null) {
+            try {
+                return new OrderDTO(existing.join());
+            } catch (CompletionException ex) {
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw ex;
+            }
+        }
+        try {
+            OrderDTO orderDTO = placement.get();
+            placed.complete(new OrderDTO(orderDTO));
+            return orderDTO;
+        } catch (RuntimeException ex) {
+            cache.asMap().remove(idempotencyKey, placed);
+            placed.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+}
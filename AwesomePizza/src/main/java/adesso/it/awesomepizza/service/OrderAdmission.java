@@ -0,0 +1,162 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.config.AdmissionProperties;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.OrderRejectedException;
+import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Admission control for order placement. An order is shed with {@link OrderRejectedException} (429) instead of
+ * being queued when:
+ * <ul>
+ *     <li>the placements in flight reach the concurrency limit,</li>
+ *     <li>more than {@code order.admission.max-pending-orders} orders are PENDING, i.e. not picked up by the kitchen,</li>
+ *     <li>the Kafka producer buffer is fuller than {@code order.admission.max-producer-buffer-usage}.</li>
+ * </ul>
+ * The concurrency limit adapts with AIMD: every placement slower than {@code order.admission.latency-target}
+ * multiplies it by {@code order.admission.backoff-ratio}, every faster one adds 1 while at least half the limit
+ * is in use. Backlog and buffer usage are sampled by {@link #refresh()}, never on the request path.
+ */
+@Component
+public class OrderAdmission {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderAdmission.class);
+
+    private final AdmissionProperties admissionProperties;
+    private final OrderRepository orderRepository;
+    private final KafkaProducer kafkaProducer;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter concurrencyRejections;
+    private final Counter backlogRejections;
+    private final Counter producerBufferRejections;
+    private final long latencyTargetNanos;
+    private volatile double limit;
+    private volatile long pendingOrders;
+    private volatile double producerBufferUsage;
+
+    public OrderAdmission(AdmissionProperties admissionProperties, OrderRepository orderRepository,
+                          KafkaProducer kafkaProducer, MeterRegistry meterRegistry) {
+        this.admissionProperties = admissionProperties;
+        this.orderRepository = orderRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.latencyTargetNanos = admissionProperties.getLatencyTarget().toNanos();
+        this.limit = admissionProperties.getInitialLimit();
+        this.concurrencyRejections = rejectionCounter(meterRegistry, "concurrency");
+        this.backlogRejections = rejectionCounter(meterRegistry, "backlog");
+        this.producerBufferRejections = rejectionCounter(meterRegistry, "producer_buffer");
+        Gauge.builder("order.admission.limit", this, OrderAdmission::getLimit)
+                .description("Current concurrency limit of order placement")
+                .register(meterRegistry);
+        Gauge.builder("order.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Order placements in flight")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("order.admission.rejected")
+                .description("Orders rejected by admission control")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits an order placement. The returned permit must be closed once the placement is done.
+     *
+     * @throws OrderRejectedException If the order is shed.
+     */
+    public Permit admit() {
+        if (!admissionProperties.isEnabled()) {
+            return new Permit(System.nanoTime(), false);
+        }
+        if (pendingOrders > admissionProperties.getMaxPendingOrders()) {
+            backlogRejections.increment();
+            throw reject("Too many orders are waiting for the kitchen, please retry later.");
+        }
+        if (producerBufferUsage > admissionProperties.getMaxProducerBufferUsage()) {
+            producerBufferRejections.increment();
+            throw reject("Orders cannot be forwarded to the kitchen fast enough, please retry later.");
+        }
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= getLimit()) {
+                concurrencyRejections.increment();
+                throw reject("Too many orders are being placed, please retry later.");
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Permit(System.nanoTime(), true);
+    }
+
+    private OrderRejectedException reject(String message) {
+        return new OrderRejectedException(message, admissionProperties.getRetryAfter());
+    }
+
+    private void release(long startedAt) {
+        long latency = System.nanoTime() - startedAt;
+        int current = inFlight.getAndDecrement();
+        synchronized (this) {
+            if (latency > latencyTargetNanos) {
+                limit = Math.max(admissionProperties.getMinLimit(), limit * admissionProperties.getBackoffRatio());
+            } else if (current * 2 >= limit) {
+                limit = Math.min(admissionProperties.getMaxLimit(), limit + 1);
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Samples the PENDING backlog and the producer buffer usage.
+     */
+    @Scheduled(fixedDelayString = "${order.admission.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (!admissionProperties.isEnabled()) {
+            return;
+        }
+        try {
+            pendingOrders = orderRepository.countByStatus(OrderStatus.PENDING);
+            producerBufferUsage = kafkaProducer.getBufferUsage();
+        } catch (Exception ex) {
+            logger.warn("Could not sample the order backlog for admission control.", ex);
+        }
+    }
+
+    /**
+     * An admitted placement. Closing it releases its concurrency slot and feeds its latency to the limit.
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final long startedAt;
+        private final boolean counted;
+        private boolean closed;
+
+        private Permit(long startedAt, boolean counted) {
+            this.startedAt = startedAt;
+            this.counted = counted;
+        }
+
+        @Override
+        public void close() {
+            if (counted && !closed) {
+                closed = true;
+                release(startedAt);
+            }
+        }
+    }
+}
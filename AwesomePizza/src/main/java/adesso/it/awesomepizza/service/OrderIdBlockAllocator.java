@@ -0,0 +1,74 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.error.DatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+/**
+ * Reserves blocks of order IDs in the {@code order_id_sequence} table.
+ * <p>
+ * Blocks are usually reserved while the caller's transaction already holds a connection of the application's
+ * pool, so the allocator works on a {@link DataSource} of its own: a request waiting for a block never waits for
+ * a second connection from the pool that the other requests are holding.
+ */
+public class OrderIdBlockAllocator implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIdBlockAllocator.class);
+    static final String SEQUENCE_NAME = "pizza_order";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderIdBlockAllocator(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    /**
+     * Reserves the next block of order IDs in its own short transaction, so the row lock is released
+     * immediately and never held for the duration of the caller's transaction.
+     *
+     * @return The hi value of the reserved block.
+     * @throws DatabaseException If no block could be reserved.
+     */
+    public long allocateBlock() {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            try {
+                Long hi = transactionTemplate.execute(status -> {
+                    if (jdbcTemplate.update("update order_id_sequence set next_hi = next_hi + 1 where name = ?",
+                            SEQUENCE_NAME) == 0) {
+                        jdbcTemplate.update("insert into order_id_sequence (name, next_hi) values (?, 1)", SEQUENCE_NAME);
+                        return 0L;
+                    }
+                    return jdbcTemplate.queryForObject("select next_hi from order_id_sequence where name = ?",
+                            Long.class, SEQUENCE_NAME) - 1;
+                });
+                logger.info("Allocated order ID block {}", hi);
+                return hi;
+            } catch (DataIntegrityViolationException ex) {
+                // Another instance created the sequence row concurrently; the next attempt increments it.
+                logger.debug("Order ID sequence row created concurrently, retrying.", ex);
+            }
+        }
+        throw new DatabaseException("Could not allocate a block of order IDs.");
+    }
+
+    /**
+     * Closes the data source of the allocator if it is a connection pool of its own.
+     */
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+}
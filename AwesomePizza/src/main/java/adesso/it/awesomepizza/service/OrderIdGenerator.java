@@ -0,0 +1,34 @@
+package adesso.it.awesomepizza.service;
+
+/**
+ * Generates unique order IDs of the form {@code ORD-XXXXXXXXXXXXX}.
+ */
+public interface OrderIdGenerator {
+
+    String PREFIX = "ORD-";
+
+    /**
+     * Crockford base32 alphabet, chosen so that encoded IDs sort in the same order as their numeric value.
+     */
+    char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    int ENCODED_LENGTH = 13;
+
+    String nextOrderId();
+
+    /**
+     * Encodes a non-negative value as a fixed-width order ID without intermediate allocations.
+     *
+     * @param value The numeric ID.
+     * @return The order ID.
+     */
+    static String toOrderId(long value) {
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+}
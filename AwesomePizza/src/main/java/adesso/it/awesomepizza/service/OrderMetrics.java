@@ -0,0 +1,157 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Order lifecycle metrics, derived from the order and update times stored with each order:
+ * <ul>
+ *     <li>{@code order.status.changes}: counter of status changes by status and pizza type,</li>
+ *     <li>{@code order.stage.duration}: time spent in one status before moving to the next, by from and to status,</li>
+ *     <li>{@code order.lifecycle.duration}: time from placement to COMPLETED.</li>
+ * </ul>
+ * Pizza types come from the customers, so at most {@code order.metrics.max-pizza-types} distinct values are used
+ * as tags and any further type is counted as "other".
+ */
+@Component
+public class OrderMetrics {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxPizzaTypes;
+    private final Set<String> pizzaTypes = ConcurrentHashMap.newKeySet();
+    private final Timer lifecycleTimer;
+
+    public OrderMetrics(MeterRegistry meterRegistry, @Value("${order.metrics.max-pizza-types:50}") int maxPizzaTypes) {
+        this.meterRegistry = meterRegistry;
+        this.maxPizzaTypes = maxPizzaTypes;
+        this.lifecycleTimer = Timer.builder("order.lifecycle.duration")
+                .description("Time from placing an order to its completion")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the status changes once the current transaction commits, or immediately if there is none,
+     * so rolled back changes are never counted.
+     *
+     * @param statusChanges The status changes to record.
+     */
+    public void recordAfterCommit(Collection<StatusChange> statusChanges) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    statusChanges.forEach(OrderMetrics.this::record);
+                }
+            });
+        } else {
+            statusChanges.forEach(this::record);
+        }
+    }
+
+    void record(StatusChange statusChange) {
+        String status = statusTag(statusChange.status());
+        Counter.builder("order.status.changes")
+                .description("Order status changes")
+                .tag("status", status)
+                .tag("pizza_type", pizzaTypeTag(statusChange.pizzaType()))
+                .register(meterRegistry)
+                .increment();
+
+        if (statusChange.previousStatus() == null || statusChange.previousStatus().equals(statusChange.status())) {
+            return;
+        }
+        Timer.builder("order.stage.duration")
+                .description("Time an order spent in a status before moving to the next one")
+                .tag("from", statusTag(statusChange.previousStatus()))
+                .tag("to", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(between(statusChange.previousChangeTime(), statusChange.changeTime()));
+        if (OrderStatus.COMPLETED.name().equals(status)) {
+            lifecycleTimer.record(between(statusChange.orderTime(), statusChange.changeTime()));
+        }
+    }
+
+    private static Duration between(LocalDateTime start, LocalDateTime end) {
+        if (start == null || end == null || end.isBefore(start)) {
+            return Duration.ZERO;
+        }
+        return Duration.between(start, end);
+    }
+
+    private static String statusTag(String status) {
+        for (OrderStatus orderStatus : OrderStatus.values()) {
+            if (orderStatus.name().equals(status)) {
+                return status;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    String pizzaTypeTag(String pizzaType) {
+        if (pizzaType == null || pizzaType.isBlank()) {
+            return UNKNOWN;
+        }
+        String tag = pizzaType.trim().toLowerCase(Locale.ROOT);
+        if (pizzaTypes.contains(tag)) {
+            return tag;
+        }
+        synchronized (pizzaTypes) {
+            if (pizzaTypes.size() < maxPizzaTypes) {
+                pizzaTypes.add(tag);
+                return tag;
+            }
+        }
+        return pizzaTypes.contains(tag) ? tag : OTHER;
+    }
+
+    /**
+     * A status change of an order.
+     *
+     * @param pizzaType          The pizza type of the order.
+     * @param orderTime          When the order was placed.
+     * @param previousStatus     The status before the change, or null for a newly placed order.
+     * @param previousChangeTime When the previous status was set.
+     * @param status             The new status.
+     * @param changeTime         When the new status was set.
+     */
+    public record StatusChange(String pizzaType, LocalDateTime orderTime, String previousStatus,
+                               LocalDateTime previousChangeTime, String status, LocalDateTime changeTime) {
+
+        public static StatusChange placed(Order order) {
+            return new StatusChange(order.getPizzaType(), order.getOrderTime(), null, null, name(order.getStatus()),
+                    order.getOrderTime());
+        }
+
+        /**
+         * Captures the change of an order to a new status. Must be called before the order is updated.
+         */
+        public static StatusChange of(Order order, OrderStatus status, LocalDateTime changeTime) {
+            LocalDateTime previousChangeTime = order.getUpdateTime() != null ? order.getUpdateTime() : order.getOrderTime();
+            return new StatusChange(order.getPizzaType(), order.getOrderTime(), name(order.getStatus()), previousChangeTime,
+                    name(status), changeTime);
+        }
+
+        private static String name(OrderStatus status) {
+            return status == null ? null : status.name();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.entity.OrderStatus;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Filter of {@link OrderService#queryOrders(OrderQuery)}: orders in one status, optionally of one pizza type, whose
+ * order or update time lies in {@code [from, to)}. Results are sorted by that time and the order's primary key, which
+ * is also the cursor of the next page.
+ *
+ * @param status    The status of the orders.
+ * @param pizzaType The pizza type of the orders, or null for all types.
+ * @param timeField The time the range and the sort order apply to.
+ * @param from      The inclusive start of the time range, or null for no start.
+ * @param to        The exclusive end of the time range, or null for no end.
+ * @param after     The cursor returned with the previous page, or null for the first page.
+ * @param size      The requested page size, defaults to {@value OrderService#DEFAULT_PAGE_SIZE} and is capped at
+ *                  {@value OrderService#MAX_PAGE_SIZE}.
+ */
+public record OrderQuery(OrderStatus status, String pizzaType, TimeField timeField, LocalDateTime from,
+                         LocalDateTime to, Cursor after, Integer size) {
+
+    static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    public OrderQuery {
+        if (timeField == null) {
+            timeField = TimeField.ORDER_TIME;
+        }
+        if (from == null) {
+            from = MIN_TIME;
+        }
+        if (to == null) {
+            to = MAX_TIME;
+        }
+    }
+
+    public enum TimeField {
+        ORDER_TIME,
+        UPDATE_TIME
+    }
+
+    /**
+     * Position of the last order of a page, written as {@code <time>_<id>}.
+     */
+    public record Cursor(LocalDateTime time, long id) {
+
+        /**
+         * @throws IllegalArgumentException If the cursor is malformed.
+         */
+        public static Cursor parse(String cursor) {
+            int separator = cursor.lastIndexOf('_');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            try {
+                return new Cursor(LocalDateTime.parse(cursor.substring(0, separator)),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            } catch (DateTimeParseException | NumberFormatException ex) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, ex);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return time + "_" + id;
+        }
+    }
+}
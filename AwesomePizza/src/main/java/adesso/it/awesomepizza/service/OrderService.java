@@ -1,56 +1,117 @@
 package adesso.it.awesomepizza.service;
 
 import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.dto.OrderPageDTO;
+import adesso.it.awesomepizza.dto.OrderQueryPageDTO;
 import adesso.it.awesomepizza.entity.Order;
 import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.entity.OutboxMessage;
 import adesso.it.awesomepizza.error.DatabaseException;
 import adesso.it.awesomepizza.error.OrderNotFoundException;
 import adesso.it.awesomepizza.error.ServiceException;
 import adesso.it.awesomepizza.kafka.KafkaProducer;
 import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
     private final OrderRepository orderRepository;
     private final KafkaProducer kafkaProducer;
-    private final AtomicInteger orderIdCounter = new AtomicInteger(0);
+    private final OrderIdGenerator orderIdGenerator;
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final OrderStatusCache orderStatusCache;
+    private final OrderMetrics orderMetrics;
+    private final OrderStatusBuffer orderStatusBuffer;
+    private final OrderStatistics orderStatistics;
+    @PersistenceContext
+    private EntityManager entityManager;
 
 
-    public OrderService(OrderRepository orderRepository, KafkaProducer kafkaProducer) {
+    public OrderService(OrderRepository orderRepository, KafkaProducer kafkaProducer, OrderIdGenerator orderIdGenerator,
+                        OutboxMessageRepository outboxMessageRepository, OrderStatusCache orderStatusCache,
+                        OrderMetrics orderMetrics, OrderStatusBuffer orderStatusBuffer, OrderStatistics orderStatistics) {
         this.orderRepository = orderRepository;
         this.kafkaProducer = kafkaProducer;
+        this.orderIdGenerator = orderIdGenerator;
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.orderStatusCache = orderStatusCache;
+        this.orderMetrics = orderMetrics;
+        this.orderStatusBuffer = orderStatusBuffer;
+        this.orderStatistics = orderStatistics;
     }
 
     /**
-     * Places new order.
+     * Places new order. The order message is written to the outbox in the same transaction
+     * and published to Kafka by {@code OutboxRelay}, so the caller never waits on the broker.
      *
      * @param orderDTO The order DTO containing order information.
      * @throws DatabaseException If an error occurs while saving the order to the database.
      * @throws ServiceException If an error occurs during JSON processing or placing the order.
      */
+    @Timed(value = "order.place", histogram = true)
     @Transactional
     public OrderDTO placeOrder(OrderDTO orderDTO) {
+        return placeOrder(orderDTO, null);
+    }
+
+    /**
+     * Places new order at most once per idempotency key. If an order was already placed with the key,
+     * it is returned as is and nothing is written.
+     *
+     * @param orderDTO       The order DTO containing order information.
+     * @param idempotencyKey The client's idempotency key, or null to always place a new order.
+     * @throws DatabaseException If an error occurs while saving the order to the database.
+     * @throws ServiceException If an error occurs during JSON processing or placing the order.
+     */
+    @Timed(value = "order.place", histogram = true)
+    @Transactional
+    public OrderDTO placeOrder(OrderDTO orderDTO, String idempotencyKey) {
         try {
+            if (idempotencyKey != null) {
+                Optional<Order> existingOrder = orderRepository.findByIdempotencyKey(idempotencyKey);
+                if (existingOrder.isPresent()) {
+                    logger.info("Order already placed with id: {} for idempotency key", existingOrder.get().getOrderId());
+                    return convertToDTO(existingOrder.get());
+                }
+            }
             Order order = createOrderFromDTO(orderDTO);
+            order.setIdempotencyKey(idempotencyKey);
             Order savedOrder = orderRepository.save(order);
-            OrderDTO updatedOrderDTO =  convertToDTO(order);
-            sendMessage(updatedOrderDTO);
+            OrderDTO placedOrderDTO = convertToDTO(savedOrder);
+            enqueueMessage(placedOrderDTO);
+            orderStatusCache.putAfterCommit(List.of(placedOrderDTO));
+            List<OrderMetrics.StatusChange> statusChanges = List.of(OrderMetrics.StatusChange.placed(savedOrder));
+            orderMetrics.recordAfterCommit(statusChanges);
+            orderStatistics.applyAfterCommit(statusChanges);
             logger.info("Order placed successfully with id: {}", savedOrder.getOrderId());
-            return convertToDTO(savedOrder);
+            return placedOrderDTO;
         } catch (DataAccessException ex) {
             logger.error("Error saving the order to the database.", ex);
             throw new DatabaseException("Error saving the order to the database.", ex);
@@ -64,17 +125,91 @@ public class OrderService {
     }
 
     /**
-     * Retrieves existing order status by ID.
+     * Finds the order placed with an idempotency key, so a repeated request can be answered before it is
+     * admitted as a new placement.
+     *
+     * @param idempotencyKey The client's idempotency key.
+     * @return The order placed with the key, or empty if there is none yet.
+     * @throws DatabaseException If an error occurs while reading the order from the database.
+     */
+    @Transactional(readOnly = true)
+    public Optional<OrderDTO> findOrderByIdempotencyKey(String idempotencyKey) {
+        try {
+            return orderRepository.findByIdempotencyKey(idempotencyKey).map(this::convertToDTO);
+        } catch (DataAccessException ex) {
+            logger.error("Error reading the order from the database.", ex);
+            throw new DatabaseException("Error reading the order from the database.", ex);
+        }
+    }
+
+    /**
+     * Places several orders in one transaction. The orders and their outbox messages are inserted with
+     * {@code saveAll}, so Hibernate writes them as JDBC batches, and {@code OutboxRelay} publishes the
+     * messages together in its next run.
+     *
+     * @param orderDTOs The orders to place, already validated by the caller.
+     * @return The placed orders, in request order, with their generated order IDs.
+     * @throws DatabaseException If an error occurs while saving the orders to the database.
+     * @throws ServiceException  If an error occurs during JSON processing or placing the orders.
+     */
+    @Timed(value = "order.place.bulk", histogram = true)
+    @Transactional
+    public List<OrderDTO> placeOrders(List<OrderDTO> orderDTOs) {
+        try {
+            List<Order> orders = new ArrayList<>(orderDTOs.size());
+            for (OrderDTO orderDTO : orderDTOs) {
+                orders.add(createOrderFromDTO(orderDTO));
+            }
+            List<Order> savedOrders = orderRepository.saveAll(orders);
+
+            LocalDateTime createdAt = LocalDateTime.now();
+            List<OrderDTO> placedOrderDTOs = new ArrayList<>(savedOrders.size());
+            List<OutboxMessage> outboxMessages = new ArrayList<>(savedOrders.size());
+            List<OrderMetrics.StatusChange> statusChanges = new ArrayList<>(savedOrders.size());
+            for (Order savedOrder : savedOrders) {
+                OrderDTO placedOrderDTO = convertToDTO(savedOrder);
+                placedOrderDTOs.add(placedOrderDTO);
+                outboxMessages.add(new OutboxMessage(placedOrderDTO.getOrderId(), kafkaProducer.getWireFormat(),
+                        kafkaProducer.serialize(placedOrderDTO), createdAt));
+                statusChanges.add(OrderMetrics.StatusChange.placed(savedOrder));
+            }
+            outboxMessageRepository.saveAll(outboxMessages);
+            orderStatusCache.putAfterCommit(placedOrderDTOs);
+            orderMetrics.recordAfterCommit(statusChanges);
+            orderStatistics.applyAfterCommit(statusChanges);
+            logger.info("Placed {} orders successfully.", placedOrderDTOs.size());
+            return placedOrderDTOs;
+        } catch (DataAccessException ex) {
+            logger.error("Error saving the orders to the database.", ex);
+            throw new DatabaseException("Error saving the orders to the database.", ex);
+        } catch (JsonProcessingException ex) {
+            logger.error("Error processing JSON data.", ex);
+            throw new ServiceException("Error processing JSON data.", ex);
+        } catch (Exception ex) {
+            logger.error("An error occurred while placing the orders.", ex);
+            throw new ServiceException("An error occurred while placing the orders.", ex);
+        }
+    }
+
+    /**
+     * Retrieves existing order status by ID, from {@link OrderStatusCache} when possible.
+     * A status update still waiting in {@link OrderStatusBuffer} takes precedence over the stored status.
      *
      * @param orderId The ID of the order to retrieve.
      * @throws OrderNotFoundException If the order with the given ID is not found.
      * @throws ServiceException       If an error occurs while retrieving the order status.
      */
+    @Timed(value = "order.status.get", histogram = true)
     public OrderDTO getOrderStatusById(String orderId) {
         try {
-            Order order = getOrderById(orderId);
+            OrderDTO cachedOrderDTO = orderStatusCache.get(orderId);
+            if (cachedOrderDTO != null) {
+                return orderStatusBuffer.overlay(cachedOrderDTO);
+            }
+            OrderDTO orderDTO = convertToDTO(getOrderById(orderId));
+            orderStatusCache.putIfAbsent(orderDTO);
             logger.info("Retrieved order status successfully for order with id: {}", orderId);
-            return convertToDTO(order);
+            return orderStatusBuffer.overlay(orderDTO);
         } catch (OrderNotFoundException ex) {
             logger.error("Order not found with id: {}", orderId, ex);
             throw ex;
@@ -85,14 +220,16 @@ public class OrderService {
     }
 
     /**
-     * Sends order message to Kafka.
+     * Writes order message to the outbox.
      *
      * @param orderDTO The order DTO containing order information.
      * @throws JsonProcessingException If an error occurs during JSON processing.
      */
-    private void sendMessage(OrderDTO orderDTO) throws JsonProcessingException {
-        kafkaProducer.sendMessage(orderDTO);
-        logger.info("Order message sent successfully for order with id: {}", orderDTO.getOrderId());
+    private void enqueueMessage(OrderDTO orderDTO) throws JsonProcessingException {
+        byte[] payload = kafkaProducer.serialize(orderDTO);
+        outboxMessageRepository.save(new OutboxMessage(orderDTO.getOrderId(), kafkaProducer.getWireFormat(), payload,
+                LocalDateTime.now()));
+        logger.info("Order message queued successfully for order with id: {}", orderDTO.getOrderId());
     }
 
     public List<OrderDTO> getAllOrders() {
@@ -112,18 +249,124 @@ public class OrderService {
     }
 
     /**
-     * Processes pizza order message from Kafka.
+     * Retrieves one page of orders using keyset pagination on the order's primary key.
+     *
+     * @param after The cursor returned with the previous page, or null for the first page.
+     * @param size  The requested page size, defaults to {@value #DEFAULT_PAGE_SIZE} and is capped at {@value #MAX_PAGE_SIZE}.
+     * @throws DatabaseException If an error occurs while retrieving the orders from the database.
+     * @throws ServiceException  If an error occurs while retrieving the orders.
+     */
+    @Transactional(readOnly = true)
+    public OrderPageDTO getOrdersPage(Long after, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        try {
+            List<Order> orders = orderRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(pageSize + 1));
+            boolean hasMore = orders.size() > pageSize;
+            List<OrderDTO> page = new ArrayList<>(Math.min(orders.size(), pageSize));
+            for (int i = 0; i < orders.size() && i < pageSize; i++) {
+                page.add(convertToDTO(orders.get(i)));
+            }
+            Long nextCursor = hasMore ? page.get(page.size() - 1).getId() : null;
+            logger.info("Retrieved page of {} orders after cursor {}.", page.size(), after);
+            return new OrderPageDTO(page, nextCursor);
+        } catch (DataAccessException ex) {
+            logger.error("Error retrieving the orders from the database.", ex);
+            throw new DatabaseException("Error retrieving the orders from the database.", ex);
+        } catch (Exception ex) {
+            logger.error("An error occurred while retrieving the orders.", ex);
+            throw new ServiceException("An error occurred while retrieving the orders.", ex);
+        }
+    }
+
+    /**
+     * Retrieves one page of orders matching the query, using keyset pagination on the queried time and the
+     * order's primary key. Orders are read as DTO projections, no entities are loaded.
+     *
+     * @param query The status, pizza type, time range and cursor of the page.
+     * @throws DatabaseException If an error occurs while retrieving the orders from the database.
+     * @throws ServiceException  If an error occurs while retrieving the orders.
+     */
+    @Transactional(readOnly = true)
+    public OrderQueryPageDTO queryOrders(OrderQuery query) {
+        int pageSize = query.size() == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(query.size(), MAX_PAGE_SIZE));
+        LocalDateTime afterTime = query.after() == null ? query.from() : query.after().time();
+        long afterId = query.after() == null ? 0L : query.after().id();
+        boolean byUpdateTime = query.timeField() == OrderQuery.TimeField.UPDATE_TIME;
+        try {
+            List<OrderDTO> orders = byUpdateTime
+                    ? orderRepository.findPageByStatusAndUpdateTime(query.status(), query.pizzaType(), query.from(),
+                            query.to(), afterTime, afterId, Limit.of(pageSize + 1))
+                    : orderRepository.findPageByStatusAndOrderTime(query.status(), query.pizzaType(), query.from(),
+                            query.to(), afterTime, afterId, Limit.of(pageSize + 1));
+            boolean hasMore = orders.size() > pageSize;
+            List<OrderDTO> page = hasMore ? orders.subList(0, pageSize) : orders;
+            String nextCursor = null;
+            if (hasMore) {
+                OrderDTO last = page.get(page.size() - 1);
+                nextCursor = new OrderQuery.Cursor(byUpdateTime ? last.getUpdateTime() : last.getOrderTime(), last.getId()).toString();
+            }
+            logger.info("Retrieved page of {} {} orders after cursor {}.", page.size(), query.status(), query.after());
+            return new OrderQueryPageDTO(page, nextCursor);
+        } catch (DataAccessException ex) {
+            logger.error("Error retrieving the orders from the database.", ex);
+            throw new DatabaseException("Error retrieving the orders from the database.", ex);
+        } catch (Exception ex) {
+            logger.error("An error occurred while retrieving the orders.", ex);
+            throw new ServiceException("An error occurred while retrieving the orders.", ex);
+        }
+    }
+
+    /**
+     * Streams all orders to the given action one at a time, reading them through a database cursor.
+     * Each order is detached once handled, so memory use does not grow with the table size.
+     *
+     * @param action The action receiving each order.
+     * @throws DatabaseException If an error occurs while reading the orders from the database.
+     * @throws ServiceException  If an error occurs while exporting the orders.
+     */
+    @Transactional(readOnly = true)
+    public void forEachOrder(Consumer<OrderDTO> action) {
+        try (Stream<Order> orders = orderRepository.streamAllByOrderById()) {
+            orders.forEach(order -> {
+                action.accept(convertToDTO(order));
+                entityManager.detach(order);
+            });
+            logger.info("Exported all orders successfully.");
+        } catch (DataAccessException ex) {
+            logger.error("Error retrieving the orders from the database.", ex);
+            throw new DatabaseException("Error retrieving the orders from the database.", ex);
+        } catch (Exception ex) {
+            logger.error("An error occurred while exporting the orders.", ex);
+            throw new ServiceException("An error occurred while exporting the orders.", ex);
+        }
+    }
+
+    /**
+     * Processes pizza order message from Kafka. The order keeps the update time set by the worker. An update that
+     * does not move the order forward, such as a retried IN_PROGRESS arriving after COMPLETED, is ignored.
      *
      * @param order The order to process.
+     * @return Whether the update was applied.
      * @throws DatabaseException If an error occurs while updating the order in the database.
      * @throws ServiceException  If an error occurs while processing the order message.
      */
+    @Timed(value = "order.message.process", histogram = true)
     @Transactional
-    public void processPizzaOrderMessage(Order order) {
+    public boolean processPizzaOrderMessage(Order order) {
         try {
             Order existingOrder = getOrderById(order.getOrderId());
-            updateOrderStatus(existingOrder, order.getStatus());
+            if (!isNewer(order, existingOrder)) {
+                logger.info("Ignoring stale status {} for order with id: {}", order.getStatus(), order.getOrderId());
+                return false;
+            }
+            LocalDateTime updateTime = updateTimeOf(order);
+            OrderMetrics.StatusChange statusChange = OrderMetrics.StatusChange.of(existingOrder, order.getStatus(), updateTime);
+            updateOrderStatus(existingOrder, order.getStatus(), updateTime);
+            orderStatusCache.putAfterCommit(List.of(convertToDTO(existingOrder)));
+            orderMetrics.recordAfterCommit(List.of(statusChange));
+            orderStatistics.applyAfterCommit(List.of(statusChange));
             logger.info("Processed pizza order message successfully for order with id: {}", order.getOrderId());
+            return true;
         } catch (DataAccessException ex) {
             logger.error("Error updating the order in the database.", ex);
             throw new DatabaseException("Error updating the order in the database.", ex);
@@ -133,15 +376,93 @@ public class OrderService {
         }
     }
 
-    private String generateOrderId() {
-        int orderIdSuffix = orderIdCounter.getAndIncrement();
-        return "ORD-" + String.format("%03d", orderIdSuffix);
+    /**
+     * Processes a batch of pizza order messages from Kafka in one transaction.
+     * The affected orders are loaded with a single query and the updates are flushed as one JDBC batch.
+     * Messages for unknown orders are logged and skipped, and so are stale ones, as in {@link #processPizzaOrderMessage}.
+     *
+     * @param orders The status updates, in the order they were received.
+     * @return The applied status updates, in the order they were received.
+     * @throws DatabaseException If an error occurs while updating the orders in the database.
+     * @throws ServiceException  If an error occurs while processing the order messages.
+     */
+    @Timed(value = "order.message.process.batch", histogram = true)
+    @Transactional
+    public List<Order> processPizzaOrderMessages(List<Order> orders) {
+        try {
+            Set<String> orderIds = new HashSet<>();
+            for (Order order : orders) {
+                orderIds.add(order.getOrderId());
+            }
+            Map<String, Order> existingOrders = new HashMap<>();
+            for (Order existingOrder : orderRepository.findByOrderIdIn(orderIds)) {
+                existingOrders.put(existingOrder.getOrderId(), existingOrder);
+            }
+
+            Map<String, Order> updatedOrders = new LinkedHashMap<>();
+            List<Order> appliedUpdates = new ArrayList<>(orders.size());
+            List<OrderMetrics.StatusChange> statusChanges = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                Order existingOrder = existingOrders.get(order.getOrderId());
+                if (existingOrder == null) {
+                    logger.error("Order not found with id: {}", order.getOrderId());
+                    continue;
+                }
+                if (!isNewer(order, existingOrder)) {
+                    logger.info("Ignoring stale status {} for order with id: {}", order.getStatus(), order.getOrderId());
+                    continue;
+                }
+                LocalDateTime updateTime = updateTimeOf(order);
+                statusChanges.add(OrderMetrics.StatusChange.of(existingOrder, order.getStatus(), updateTime));
+                existingOrder.setStatus(order.getStatus());
+                existingOrder.setUpdateTime(updateTime);
+                updatedOrders.put(existingOrder.getOrderId(), existingOrder);
+                appliedUpdates.add(order);
+            }
+            orderRepository.saveAllAndFlush(updatedOrders.values());
+            List<OrderDTO> updatedOrderDTOs = new ArrayList<>(updatedOrders.size());
+            for (Order updatedOrder : updatedOrders.values()) {
+                updatedOrderDTOs.add(convertToDTO(updatedOrder));
+            }
+            orderStatusCache.putAfterCommit(updatedOrderDTOs);
+            orderMetrics.recordAfterCommit(statusChanges);
+            orderStatistics.applyAfterCommit(statusChanges);
+            logger.info("Processed {} pizza order messages, updated {} orders.", orders.size(), updatedOrders.size());
+            return appliedUpdates;
+        } catch (DataAccessException ex) {
+            logger.error("Error updating the orders in the database.", ex);
+            throw new DatabaseException("Error updating the orders in the database.", ex);
+        } catch (Exception ex) {
+            logger.error("An error occurred while processing the order messages.", ex);
+            throw new ServiceException("An error occurred while processing the order messages.", ex);
+        }
+    }
+
+    /**
+     * An update is newer if it moves the order to a later status, or repeats its status with a later update time.
+     * Updates without an update time are judged by their status alone.
+     */
+    private static boolean isNewer(Order update, Order storedOrder) {
+        if (update.getStatus() == null) {
+            return false;
+        }
+        if (storedOrder.getStatus() == null || update.getStatus().ordinal() > storedOrder.getStatus().ordinal()) {
+            return true;
+        }
+        return update.getStatus() == storedOrder.getStatus()
+                && update.getUpdateTime() != null && storedOrder.getUpdateTime() != null
+                && update.getUpdateTime().isAfter(storedOrder.getUpdateTime());
     }
+
+    private static LocalDateTime updateTimeOf(Order update) {
+        return update.getUpdateTime() != null ? update.getUpdateTime() : LocalDateTime.now();
+    }
+
     private Order createOrderFromDTO(OrderDTO orderDTO) {
         Order order = new Order();
-        order.setOrderId(generateOrderId());
+        order.setOrderId(orderIdGenerator.nextOrderId());
         order.setPizzaType(orderDTO.getPizzaType());
-        order.setStatus(OrderStatus.PENDING.name());
+        order.setStatus(OrderStatus.PENDING);
         order.setNote(orderDTO.getNote());
         order.setOrderTime(LocalDateTime.now());
         order.setUpdateTime(null);
@@ -159,22 +480,23 @@ public class OrderService {
     /**
      * Updates order status and update time.
      *
-     * @param order  The order to update.
-     * @param status The new status of the order.
+     * @param order      The order to update.
+     * @param status     The new status of the order.
+     * @param updateTime The time of the status change.
      */
-    private void updateOrderStatus(Order order, String status) {
+    private void updateOrderStatus(Order order, OrderStatus status, LocalDateTime updateTime) {
         order.setStatus(status);
-        order.setUpdateTime(LocalDateTime.now());
+        order.setUpdateTime(updateTime);
         orderRepository.save(order);
         logger.info("Updated order status to {} for order with id: {}", status, order.getOrderId());
     }
 
-    private OrderDTO convertToDTO(Order order) {
+    OrderDTO convertToDTO(Order order) {
         OrderDTO orderDTO = new OrderDTO();
         orderDTO.setId(order.getId());
         orderDTO.setOrderId(order.getOrderId());
         orderDTO.setPizzaType(order.getPizzaType());
-        orderDTO.setStatus(order.getStatus());
+        orderDTO.setStatus(order.getStatus() == null ? null : order.getStatus().name());
         orderDTO.setNote(order.getNote());
         orderDTO.setOrderTime(order.getOrderTime());
         orderDTO.setUpdateTime(order.getUpdateTime());
@@ -0,0 +1,294 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.OrderStatsDTO;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.DatabaseException;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.repository.OrderStatusCount;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Read model of order statistics: the number of orders in each status, overall and per pizza type, and the orders
+ * placed and completed within the last {@code order.stats.window}. {@link OrderService} applies every placement and
+ * status change to it once committed, so reading it never touches the database.
+ * <p>
+ * It is rebuilt from the {@code pizza_order} table at startup, before the Kafka listeners and the web server start,
+ * and again every {@code order.stats.reconcile-interval-ms}. Each instance only applies the changes it commits itself,
+ * so with several instances the counts drift apart between two rebuilds, by the changes made on the other instances.
+ * The window is kept in buckets of {@code order.stats.bucket}. Pizza types come from the customers, so at most
+ * {@code order.stats.max-pizza-types} distinct values are counted separately and any further type as "other".
+ */
+@Component
+public class OrderStatistics {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatistics.class);
+
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration window;
+    private final long bucketMillis;
+    private final int maxPizzaTypes;
+    private final Clock clock;
+
+    private final int buckets;
+    private volatile Counts counts;
+
+    @Autowired
+    public OrderStatistics(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+                           @Value("${order.stats.window:1h}") Duration window,
+                           @Value("${order.stats.bucket:1m}") Duration bucket,
+                           @Value("${order.stats.max-pizza-types:100}") int maxPizzaTypes) {
+        this(orderRepository, transactionManager, window, bucket, maxPizzaTypes, Clock.systemDefaultZone());
+    }
+
+    public OrderStatistics(OrderRepository orderRepository, PlatformTransactionManager transactionManager,
+                           Duration window, Duration bucket, int maxPizzaTypes, Clock clock) {
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.window = window;
+        this.bucketMillis = bucket.toMillis();
+        this.maxPizzaTypes = maxPizzaTypes;
+        this.clock = clock;
+        this.buckets = (int) Math.max(1, window.toMillis() / bucketMillis);
+        this.counts = new Counts(buckets);
+    }
+
+    /**
+     * Recounts the orders from the {@code pizza_order} table into new statistics and then replaces the current ones,
+     * so readers never see a partial count. Status changes applied while the rebuild runs may be lost until the
+     * next rebuild.
+     *
+     * @throws DatabaseException If an error occurs while reading the orders from the database.
+     */
+    @PostConstruct
+    public void rebuild() {
+        try {
+            Counts rebuilt = new Counts(buckets);
+            transactionTemplate.executeWithoutResult(status -> {
+                for (OrderStatusCount count : orderRepository.countByStatusAndPizzaType()) {
+                    if (count.status() != null) {
+                        add(rebuilt, count.status(), count.pizzaType(), count.count());
+                    }
+                }
+                LocalDateTime since = LocalDateTime.now(clock).minus(window);
+                try (Stream<LocalDateTime> orderTimes =
+                             orderRepository.streamOrderTimesSince(EnumSet.allOf(OrderStatus.class), since)) {
+                    orderTimes.forEach(orderTime -> count(rebuilt, rebuilt.placed, orderTime));
+                }
+                try (Stream<LocalDateTime> completionTimes =
+                             orderRepository.streamUpdateTimesSince(OrderStatus.COMPLETED, since)) {
+                    completionTimes.forEach(completionTime -> count(rebuilt, rebuilt.completed, completionTime));
+                }
+            });
+            counts = rebuilt;
+            logger.info("Rebuilt order statistics: {} orders.", total(rebuilt));
+        } catch (DataAccessException ex) {
+            logger.error("Error reading the order statistics from the database.", ex);
+            throw new DatabaseException("Error reading the order statistics from the database.", ex);
+        }
+    }
+
+    /**
+     * Rebuilds the statistics periodically, correcting the drift caused by the changes made on other instances.
+     */
+    @Scheduled(initialDelayString = "${order.stats.reconcile-interval-ms:300000}",
+            fixedDelayString = "${order.stats.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        try {
+            rebuild();
+        } catch (DatabaseException ex) {
+            logger.warn("Reconciling the order statistics failed, keeping the current ones.", ex);
+        }
+    }
+
+    /**
+     * Applies the status changes once the current transaction commits, or immediately if there is none,
+     * so rolled back changes are never counted.
+     *
+     * @param statusChanges The status changes to apply.
+     */
+    public void applyAfterCommit(Collection<OrderMetrics.StatusChange> statusChanges) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    statusChanges.forEach(OrderStatistics.this::apply);
+                }
+            });
+        } else {
+            statusChanges.forEach(this::apply);
+        }
+    }
+
+    void apply(OrderMetrics.StatusChange statusChange) {
+        Counts counts = this.counts;
+        OrderStatus status = status(statusChange.status());
+        if (status == null) {
+            return;
+        }
+        OrderStatus previousStatus = status(statusChange.previousStatus());
+        if (previousStatus == status) {
+            return;
+        }
+        if (previousStatus != null) {
+            add(counts, previousStatus, statusChange.pizzaType(), -1);
+        }
+        add(counts, status, statusChange.pizzaType(), 1);
+        if (statusChange.previousStatus() == null) {
+            count(counts, counts.placed, statusChange.changeTime());
+        }
+        if (status == OrderStatus.COMPLETED) {
+            count(counts, counts.completed, statusChange.changeTime());
+        }
+    }
+
+    /**
+     * @return The current statistics. The cost depends on the number of pizza types and buckets, not on the
+     * number of orders.
+     */
+    public OrderStatsDTO getStats() {
+        Counts counts = this.counts;
+        Map<String, Long> statusCounts = toMap(counts.byStatus);
+        Map<String, Map<String, Long>> pizzaTypeCounts = new TreeMap<>();
+        counts.byPizzaType.forEach((pizzaType, pizzaTypeCount) -> pizzaTypeCounts.put(pizzaType, toMap(pizzaTypeCount)));
+        long placedInWindow;
+        long completedInWindow;
+        synchronized (counts.bucketIds) {
+            long oldest = bucketId(clock.millis()) - buckets;
+            placedInWindow = sum(counts, counts.placed, oldest);
+            completedInWindow = sum(counts, counts.completed, oldest);
+        }
+        double hours = window.toMillis() / 3_600_000.0;
+        return new OrderStatsDTO(total(counts), statusCounts, pizzaTypeCounts, window.toSeconds(), placedInWindow,
+                completedInWindow, placedInWindow / hours, completedInWindow / hours);
+    }
+
+    private void add(Counts counts, OrderStatus status, String pizzaType, long delta) {
+        counts.byStatus.addAndGet(status.ordinal(), delta);
+        countsOf(counts, pizzaType).addAndGet(status.ordinal(), delta);
+    }
+
+    private void count(Counts counts, long[] bucketCounts, LocalDateTime time) {
+        if (time == null) {
+            return;
+        }
+        long id = bucketId(time.atZone(clock.getZone()).toInstant().toEpochMilli());
+        synchronized (counts.bucketIds) {
+            long newest = bucketId(clock.millis());
+            if (id <= newest - buckets || id > newest) {
+                return;
+            }
+            int index = (int) Math.floorMod(id, (long) buckets);
+            if (counts.bucketIds[index] != id) {
+                counts.bucketIds[index] = id;
+                counts.placed[index] = 0;
+                counts.completed[index] = 0;
+            }
+            bucketCounts[index]++;
+        }
+    }
+
+    private long sum(Counts counts, long[] bucketCounts, long oldest) {
+        long sum = 0;
+        for (int i = 0; i < buckets; i++) {
+            if (counts.bucketIds[i] > oldest) {
+                sum += bucketCounts[i];
+            }
+        }
+        return sum;
+    }
+
+    private long bucketId(long epochMillis) {
+        return Math.floorDiv(epochMillis, bucketMillis);
+    }
+
+    private static long total(Counts counts) {
+        long total = 0;
+        for (int i = 0; i < STATUSES.length; i++) {
+            total += counts.byStatus.get(i);
+        }
+        return total;
+    }
+
+    private AtomicLongArray countsOf(Counts counts, String pizzaType) {
+        String key = pizzaType == null || pizzaType.isBlank() ? UNKNOWN : pizzaType.trim();
+        AtomicLongArray pizzaTypeCounts = counts.byPizzaType.get(key);
+        if (pizzaTypeCounts != null) {
+            return pizzaTypeCounts;
+        }
+        synchronized (counts.byPizzaType) {
+            if (counts.byPizzaType.size() >= maxPizzaTypes && !counts.byPizzaType.containsKey(key)) {
+                key = OTHER;
+            }
+            return counts.byPizzaType.computeIfAbsent(key, k -> new AtomicLongArray(STATUSES.length));
+        }
+    }
+
+    private static Map<String, Long> toMap(AtomicLongArray counts) {
+        Map<String, Long> map = new LinkedHashMap<>();
+        for (OrderStatus status : STATUSES) {
+            map.put(status.name(), counts.get(status.ordinal()));
+        }
+        return map;
+    }
+
+    private static OrderStatus status(String status) {
+        if (status == null) {
+            return null;
+        }
+        for (OrderStatus orderStatus : STATUSES) {
+            if (orderStatus.name().equals(status)) {
+                return orderStatus;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The counters, replaced as a whole by {@link #rebuild()}.
+     */
+    private static final class Counts {
+
+        private final AtomicLongArray byStatus = new AtomicLongArray(STATUSES.length);
+        private final Map<String, AtomicLongArray> byPizzaType = new ConcurrentHashMap<>();
+        private final long[] bucketIds;
+        private final long[] placed;
+        private final long[] completed;
+
+        private Counts(int buckets) {
+            this.bucketIds = new long[buckets];
+            this.placed = new long[buckets];
+            this.completed = new long[buckets];
+            Arrays.fill(bucketIds, Long.MIN_VALUE);
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Fan-out registry pushing order status changes to Server-Sent Events subscribers.
+ * <p>
+ * Subscriptions are indexed by order ID and hold no thread while idle: the servlet request is in async mode
+ * and an event is only written when {@link #publish} is called for one of the subscribed orders.
+ * A subscription completes once all of its orders are COMPLETED, or when it times out.
+ */
+@Component
+public class OrderStatusBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusBroadcaster.class);
+    private static final String EVENT_NAME = "status";
+
+    private final Map<String, Set<Subscription>> subscriptionsByOrderId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+    private final Duration timeout;
+
+    public OrderStatusBroadcaster(@Value("${order.events.timeout:30m}") Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Opens a subscription to the given orders and sends their current state as the first events.
+     * <p>
+     * The subscription is registered before the current state is read, so a status change published in between is
+     * not lost: it is sent after the snapshot, and whichever of the two is older is dropped.
+     *
+     * @param orderIds       The IDs of the orders to subscribe to.
+     * @param snapshotLoader Reads the current state of an order.
+     * @return The emitter streaming the status changes.
+     */
+    public SseEmitter subscribe(Collection<String> orderIds, Function<String, OrderDTO> snapshotLoader) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(emitter);
+        for (String orderId : orderIds) {
+            subscription.remaining.put(orderId, -1);
+            subscription.orderIds.add(orderId);
+            subscriptionsByOrderId.computeIfAbsent(orderId, key -> ConcurrentHashMap.newKeySet()).add(subscription);
+        }
+        subscriptionCount.incrementAndGet();
+        emitter.onCompletion(() -> unregister(subscription));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> unregister(subscription));
+
+        List<OrderDTO> snapshot = new ArrayList<>(orderIds.size());
+        try {
+            for (String orderId : orderIds) {
+                snapshot.add(snapshotLoader.apply(orderId));
+            }
+        } catch (RuntimeException ex) {
+            unregister(subscription);
+            throw ex;
+        }
+        for (OrderDTO orderDTO : snapshot) {
+            subscription.sendSnapshot(orderDTO);
+        }
+        return emitter;
+    }
+
+    /**
+     * Pushes a status change received from the preparation topic to the subscribers of the order. Only the status
+     * and update time are taken from the message; the other fields of the event come from the stored order.
+     *
+     * @param order The order status message.
+     */
+    public void publish(Order order) {
+        Set<Subscription> subscriptions = subscriptionsByOrderId.get(order.getOrderId());
+        if (subscriptions == null || subscriptions.isEmpty()) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.update(order);
+        }
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionCount.get();
+    }
+
+    private void unregister(Subscription subscription) {
+        if (!subscription.unregistered.compareAndSet(false, true)) {
+            return;
+        }
+        for (String orderId : subscription.orderIds) {
+            subscriptionsByOrderId.computeIfPresent(orderId, (key, subscriptions) -> {
+                subscriptions.remove(subscription);
+                return subscriptions.isEmpty() ? null : subscriptions;
+            });
+        }
+        subscriptionCount.decrementAndGet();
+    }
+
+    private static OrderDTO withStatus(OrderDTO source, String status, LocalDateTime updateTime) {
+        OrderDTO orderDTO = new OrderDTO(source);
+        orderDTO.setStatus(status);
+        orderDTO.setUpdateTime(updateTime);
+        return orderDTO;
+    }
+
+    private static int rank(String status) {
+        try {
+            return OrderStatus.valueOf(status).ordinal();
+        } catch (IllegalArgumentException | NullPointerException ex) {
+            return -1;
+        }
+    }
+
+    private final class Subscription {
+
+        private final SseEmitter emitter;
+        /**
+         * Rank of the last status sent per order that is not COMPLETED yet.
+         */
+        private final Map<String, Integer> remaining = new ConcurrentHashMap<>();
+        /**
+         * Stored state per order, once read, that status changes are applied to.
+         */
+        private final Map<String, OrderDTO> snapshots = new HashMap<>();
+        /**
+         * Latest status change per order published before its stored state was read.
+         */
+        private final Map<String, Order> earlyUpdates = new HashMap<>();
+        private final Set<String> orderIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean unregistered = new AtomicBoolean();
+
+        private Subscription(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private synchronized void sendSnapshot(OrderDTO orderDTO) {
+            snapshots.put(orderDTO.getOrderId(), orderDTO);
+            send(orderDTO);
+            Order earlyUpdate = earlyUpdates.remove(orderDTO.getOrderId());
+            if (earlyUpdate != null) {
+                update(earlyUpdate);
+            }
+        }
+
+        private synchronized void update(Order order) {
+            if (order.getStatus() == null) {
+                return;
+            }
+            OrderDTO snapshot = snapshots.get(order.getOrderId());
+            if (snapshot == null) {
+                Order earlyUpdate = earlyUpdates.get(order.getOrderId());
+                if (earlyUpdate == null || order.getStatus().ordinal() > earlyUpdate.getStatus().ordinal()) {
+                    earlyUpdates.put(order.getOrderId(), order);
+                }
+                return;
+            }
+            send(withStatus(snapshot, order.getStatus().name(), order.getUpdateTime()));
+        }
+
+        /**
+         * Sends the order unless an equal or later status was already sent, so a snapshot
+         * racing with a live update never moves a client backwards.
+         */
+        private synchronized void send(OrderDTO orderDTO) {
+            Integer lastRank = remaining.get(orderDTO.getOrderId());
+            int rank = rank(orderDTO.getStatus());
+            if (lastRank == null || rank <= lastRank) {
+                return;
+            }
+            try {
+                emitter.send(SseEmitter.event()
+                        .name(EVENT_NAME)
+                        .data(orderDTO, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException ex) {
+                logger.debug("Dropping status subscription for order {}", orderDTO.getOrderId(), ex);
+                emitter.completeWithError(ex);
+                unregister(this);
+                return;
+            }
+            if (OrderStatus.COMPLETED.name().equals(orderDTO.getStatus())) {
+                remaining.remove(orderDTO.getOrderId());
+                snapshots.remove(orderDTO.getOrderId());
+                if (remaining.isEmpty()) {
+                    emitter.complete();
+                    unregister(this);
+                }
+            } else {
+                remaining.put(orderDTO.getOrderId(), rank);
+            }
+        }
+    }
+}
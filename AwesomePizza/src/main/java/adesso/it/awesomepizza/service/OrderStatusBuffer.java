@@ -0,0 +1,99 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Status updates received from the preparation topic and not yet written to the database, at most one per order.
+ * A newer update replaces the buffered one, judged by the update time set by the worker; updates without an update
+ * time count as newest. Entries are removed only once they are written, so {@link #peek} always shows the latest
+ * status of an order, whether it is already stored or not.
+ */
+@Component
+public class OrderStatusBuffer {
+
+    private final Map<String, Order> updates = new ConcurrentHashMap<>();
+    private final Counter coalescedUpdates;
+
+    public OrderStatusBuffer(MeterRegistry meterRegistry) {
+        this.coalescedUpdates = Counter.builder("order.status.updates.coalesced")
+                .description("Status updates replaced in the write-behind buffer before being written")
+                .register(meterRegistry);
+        Gauge.builder("order.status.updates.buffered", updates, Map::size)
+                .description("Status updates waiting in the write-behind buffer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Buffers a status update, unless a newer update of the same order is already buffered.
+     *
+     * @param update The status message of the order.
+     * @return The update that will not be written: the replaced one, the given one if it is older, or null.
+     */
+    public Order offer(Order update) {
+        Order[] coalesced = new Order[1];
+        updates.merge(update.getOrderId(), update, (buffered, incoming) -> {
+            coalescedUpdates.increment();
+            boolean older = isOlder(incoming, buffered);
+            coalesced[0] = older ? incoming : buffered;
+            return older ? buffered : incoming;
+        });
+        return coalesced[0];
+    }
+
+    private static boolean isOlder(Order incoming, Order buffered) {
+        return incoming.getUpdateTime() != null && buffered.getUpdateTime() != null
+                && incoming.getUpdateTime().isBefore(buffered.getUpdateTime());
+    }
+
+    /**
+     * @return The buffered update of the order, or null if there is none.
+     */
+    public Order peek(String orderId) {
+        return updates.get(orderId);
+    }
+
+    /**
+     * @return A snapshot of the buffered updates.
+     */
+    public List<Order> pending() {
+        return new ArrayList<>(updates.values());
+    }
+
+    /**
+     * Removes written updates. Updates replaced by a newer one in the meantime stay buffered.
+     *
+     * @param written The updates taken from {@link #pending()} and written to the database.
+     */
+    public void remove(Collection<Order> written) {
+        for (Order update : written) {
+            updates.remove(update.getOrderId(), update);
+        }
+    }
+
+    public int size() {
+        return updates.size();
+    }
+
+    /**
+     * Applies the buffered update of the order, if any, to a copy of the given order.
+     */
+    OrderDTO overlay(OrderDTO orderDTO) {
+        Order update = updates.get(orderDTO.getOrderId());
+        if (update == null || update.getStatus() == null) {
+            return orderDTO;
+        }
+        return new OrderDTO(orderDTO.getId(), orderDTO.getOrderId(), orderDTO.getPizzaType(), orderDTO.getNote(),
+                update.getStatus(), orderDTO.getOrderTime(), update.getUpdateTime());
+    }
+}
@@ -0,0 +1,83 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.dto.CacheStatsDTO;
+import adesso.it.awesomepizza.dto.OrderDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Bounded, expiring cache of order states keyed by order ID, used to answer status polls without a database
+ * round-trip. {@link OrderService} writes through to it whenever an order is stored or its status changes.
+ * <p>
+ * Entries are copied on the way in and out, so callers can never modify a cached order.
+ */
+@Component
+public class OrderStatusCache {
+
+    private final Cache<String, OrderDTO> cache;
+
+    public OrderStatusCache(@Value("${order.status-cache.maximum-size:100000}") long maximumSize,
+                            @Value("${order.status-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+    }
+
+    public OrderDTO get(String orderId) {
+        OrderDTO orderDTO = cache.getIfPresent(orderId);
+        return orderDTO == null ? null : new OrderDTO(orderDTO);
+    }
+
+    public void put(OrderDTO orderDTO) {
+        cache.put(orderDTO.getOrderId(), new OrderDTO(orderDTO));
+    }
+
+    /**
+     * Caches an order read from the database, unless an entry was cached meanwhile. A concurrent status change
+     * puts its newer state after its commit, and a slower read must not overwrite it with the older one.
+     *
+     * @param orderDTO The order to cache.
+     */
+    public void putIfAbsent(OrderDTO orderDTO) {
+        cache.asMap().putIfAbsent(orderDTO.getOrderId(), new OrderDTO(orderDTO));
+    }
+
+    /**
+     * Caches the orders once the current transaction commits, or immediately if there is none,
+     * so rolled back changes never become visible.
+     *
+     * @param orderDTOs The orders to cache.
+     */
+    public void putAfterCommit(Collection<OrderDTO> orderDTOs) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    orderDTOs.forEach(OrderStatusCache.this::put);
+                }
+            });
+        } else {
+            orderDTOs.forEach(this::put);
+        }
+    }
+
+    public void evict(String orderId) {
+        cache.invalidate(orderId);
+    }
+
+    public CacheStatsDTO getStats() {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount());
+    }
+}
@@ -0,0 +1,142 @@
+package adesso.it.awesomepizza.service;
+
+import adesso.it.awesomepizza.entity.Order;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Write-behind of order status updates. Updates are collected in {@link OrderStatusBuffer}, where the updates of
+ * one order within a flush interval coalesce into the newest, and are written every
+ * {@code order.write-behind.flush-interval-ms} in batches of {@code order.write-behind.batch-size}. IN_PROGRESS
+ * and COMPLETED of a quickly prepared pizza thus cost one database write instead of two.
+ * <p>
+ * It is disabled by default: the listener commits the Kafka offsets of buffered updates before they are written, so
+ * updates buffered when the application crashes are lost; a regular shutdown writes them first. When more than
+ * {@code order.write-behind.max-buffered} updates are buffered, the listener writes them itself, which slows
+ * consumption down to the database's pace. Updates that cannot be written go to the retry topics like the updates
+ * the listener writes itself.
+ */
+@Component
+public class OrderStatusWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderStatusWriteBehind.class);
+
+    private final OrderService orderService;
+    private final OrderStatusBuffer orderStatusBuffer;
+    private final OrderStatusBroadcaster orderStatusBroadcaster;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBuffered;
+    /**
+     * Failure handler of every buffered update, by identity.
+     */
+    private final Map<Order, BiConsumer<Order, Exception>> failureHandlers =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    public OrderStatusWriteBehind(OrderService orderService, OrderStatusBuffer orderStatusBuffer,
+                                  OrderStatusBroadcaster orderStatusBroadcaster,
+                                  @Value("${order.write-behind.enabled:false}") boolean enabled,
+                                  @Value("${order.write-behind.batch-size:500}") int batchSize,
+                                  @Value("${order.write-behind.max-buffered:10000}") int maxBuffered) {
+        this.orderService = orderService;
+        this.orderStatusBuffer = orderStatusBuffer;
+        this.orderStatusBroadcaster = orderStatusBroadcaster;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBuffered = maxBuffered;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Buffers status updates received from the preparation topic.
+     *
+     * @param orders    The status updates, in the order they were received.
+     * @param onFailure Called with an update and its error if the update cannot be written, so it can be retried.
+     */
+    public void submit(List<Order> orders, BiConsumer<Order, Exception> onFailure) {
+        for (Order order : orders) {
+            failureHandlers.put(order, onFailure);
+            Order coalesced = orderStatusBuffer.offer(order);
+            if (coalesced != null) {
+                failureHandlers.remove(coalesced);
+            }
+        }
+        if (orderStatusBuffer.size() > maxBuffered) {
+            flush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${order.write-behind.flush-interval-ms:100}")
+    public void writeBufferedUpdates() {
+        flush();
+    }
+
+    /**
+     * Writes the buffered updates and pushes the applied ones to the Server-Sent Events subscribers. If a batch
+     * fails, its updates are written one by one, so a single bad update does not hold back the others; updates that
+     * still fail are handed to the failure handler they were submitted with, which moves them to the retry topics.
+     *
+     * @return The number of updates taken from the buffer.
+     */
+    public synchronized int flush() {
+        List<Order> updates = orderStatusBuffer.pending();
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<Order> batch = updates.subList(from, Math.min(from + batchSize, updates.size()));
+            List<Order> applied = new ArrayList<>(batch.size());
+            try {
+                applied.addAll(orderService.processPizzaOrderMessages(batch));
+            } catch (Exception ex) {
+                logger.warn("Writing {} buffered status updates failed, writing them one by one.", batch.size(), ex);
+                for (Order update : batch) {
+                    try {
+                        if (orderService.processPizzaOrderMessage(update)) {
+                            applied.add(update);
+                        }
+                    } catch (Exception updateEx) {
+                        fail(update, updateEx);
+                    }
+                }
+            }
+            applied.forEach(orderStatusBroadcaster::publish);
+            batch.forEach(failureHandlers::remove);
+            orderStatusBuffer.remove(batch);
+        }
+        return updates.size();
+    }
+
+    private void fail(Order update, Exception ex) {
+        BiConsumer<Order, Exception> onFailure = failureHandlers.remove(update);
+        if (onFailure == null) {
+            logger.error("Dropping status update for order with id: {}", update.getOrderId(), ex);
+            return;
+        }
+        logger.error("Status update for order with id: {} failed", update.getOrderId(), ex);
+        try {
+            onFailure.accept(update, ex);
+        } catch (Exception handlerEx) {
+            logger.error("Dropping status update for order with id: {}", update.getOrderId(), handlerEx);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (orderStatusBuffer.size() > 0) {
+            logger.info("Writing {} buffered status updates before shutdown.", orderStatusBuffer.size());
+            flush();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package adesso.it.awesomepizza.service;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered, node-aware ID generator (Snowflake layout).
+ * <p>
+ * Each ID holds 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node ID and a 12-bit sequence.
+ * Timestamp and sequence share one {@link AtomicLong}, so generation is lock-free. If the clock moves backwards
+ * or the sequence is exhausted, the generator keeps counting from the last timestamp instead of repeating IDs.
+ */
+public class SnowflakeOrderIdGenerator implements OrderIdGenerator {
+
+    /**
+     * 2024-01-01T00:00:00Z.
+     */
+    public static final long EPOCH = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long nodeId;
+    private final Clock clock;
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeOrderIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    public SnowflakeOrderIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextOrderId() {
+        return OrderIdGenerator.toOrderId(nextId());
+    }
+
+    public long nextId() {
+        long next;
+        while (true) {
+            long current = state.get();
+            long now = clock.millis() - EPOCH;
+            next = now > (current >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : current + 1;
+            if (state.compareAndSet(current, next)) {
+                break;
+            }
+        }
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+}
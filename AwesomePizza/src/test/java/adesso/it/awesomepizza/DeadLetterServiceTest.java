@@ -0,0 +1,96 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.DeadLetterDTO;
+import adesso.it.awesomepizza.entity.DeadLetter;
+import adesso.it.awesomepizza.error.ServiceException;
+import adesso.it.awesomepizza.kafka.RetryTopicRouter;
+import adesso.it.awesomepizza.repository.DeadLetterRepository;
+import adesso.it.awesomepizza.service.DeadLetterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DeadLetterServiceTest {
+
+    @Mock
+    DeadLetterRepository deadLetterRepository;
+
+    @Mock
+    RetryTopicRouter retryTopicRouter;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    DeadLetterService deadLetterService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(retryTopicRouter.getSendTimeout()).thenReturn(Duration.ofSeconds(1));
+        deadLetterService = new DeadLetterService(deadLetterRepository, retryTopicRouter, transactionManager, 1000);
+    }
+
+    @Test
+    public void testReplayClaimsDeadLettersBeforeSending() {
+        DeadLetter first = deadLetter(1L, "ORD-1");
+        DeadLetter second = deadLetter(2L, "ORD-2");
+        when(deadLetterRepository.lockUnreplayed(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(retryTopicRouter.replay(eq("order-topic"), any(), any(), any())).thenAnswer(invocation -> {
+            assertNotNull(first.getReplayedAt());
+            assertNotNull(second.getReplayedAt());
+            return CompletableFuture.completedFuture(null);
+        });
+
+        List<DeadLetterDTO> replayed = deadLetterService.replay(List.of(1L, 2L), null);
+
+        assertEquals(List.of(1L, 2L), replayed.stream().map(DeadLetterDTO::getId).toList());
+        verify(transactionManager, times(1)).commit(any());
+        verify(deadLetterRepository, never()).releaseClaim(any());
+    }
+
+    @Test
+    public void testReplayReleasesDeadLettersNotSent() {
+        DeadLetter first = deadLetter(1L, "ORD-1");
+        DeadLetter second = deadLetter(2L, "ORD-2");
+        when(deadLetterRepository.lockUnreplayed(List.of(1L, 2L))).thenReturn(List.of(first, second));
+        when(retryTopicRouter.replay(eq("order-topic"), eq("ORD-1"), any(), any()))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(retryTopicRouter.replay(eq("order-topic"), eq("ORD-2"), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        List<DeadLetterDTO> replayed = deadLetterService.replay(List.of(1L, 2L), null);
+
+        assertEquals(List.of(1L), replayed.stream().map(DeadLetterDTO::getId).toList());
+        verify(deadLetterRepository, times(1)).releaseClaim(List.of(2L));
+    }
+
+    @Test
+    public void testReplayFailsWhenNothingIsSent() {
+        when(deadLetterRepository.lockUnreplayed(List.of(1L))).thenReturn(List.of(deadLetter(1L, "ORD-1")));
+        when(retryTopicRouter.replay(any(), any(), any(), any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThrows(ServiceException.class, () -> deadLetterService.replay(List.of(1L), null));
+        verify(deadLetterRepository, times(1)).releaseClaim(List.of(1L));
+    }
+
+    private DeadLetter deadLetter(Long id, String orderId) {
+        DeadLetter deadLetter = new DeadLetter("order-topic", orderId, null,
+                orderId.getBytes(StandardCharsets.UTF_8), "failed", 3, LocalDateTime.now());
+        deadLetter.setId(id);
+        return deadLetter;
+    }
+}
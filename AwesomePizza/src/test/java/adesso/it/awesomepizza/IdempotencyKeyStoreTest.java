@@ -0,0 +1,91 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.service.IdempotencyKeyStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyKeyStoreTest {
+
+    @Test
+    public void testRepeatedKeyReturnsFirstOrderWithoutPlacingAgain() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(100, Duration.ofMinutes(1));
+        AtomicInteger placements = new AtomicInteger();
+
+        OrderDTO first = store.placeOnce("key-1", () -> order("ORD-" + placements.incrementAndGet()));
+        OrderDTO second = store.placeOnce("key-1", () -> order("ORD-" + placements.incrementAndGet()));
+        OrderDTO other = store.placeOnce("key-2", () -> order("ORD-" + placements.incrementAndGet()));
+
+        assertEquals("ORD-1", first.getOrderId());
+        assertEquals("ORD-1", second.getOrderId());
+        assertEquals("ORD-2", other.getOrderId());
+        assertEquals(2, placements.get());
+    }
+
+    @Test
+    public void testFailedPlacementIsNotRemembered() {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> store.placeOnce("key-1", () -> {
+            throw new IllegalStateException("database down");
+        }));
+        OrderDTO retried = store.placeOnce("key-1", () -> order("ORD-1"));
+
+        assertEquals("ORD-1", retried.getOrderId());
+    }
+
+    @Test
+    public void testConcurrentRequestsWithSameKeyPlaceOneOrder() throws Exception {
+        IdempotencyKeyStore store = new IdempotencyKeyStore(100, Duration.ofMinutes(1));
+        AtomicInteger placements = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<OrderDTO>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return store.placeOnce("key-1", () -> {
+                        sleep(50);
+                        return order("ORD-" + placements.incrementAndGet());
+                    });
+                }));
+            }
+            start.countDown();
+            for (Future<OrderDTO> result : results) {
+                assertEquals("ORD-1", result.get(5, TimeUnit.SECONDS).getOrderId());
+            }
+            assertEquals(1, placements.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static OrderDTO order(String orderId) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(orderId);
+        orderDTO.setPizzaType("Margherita");
+        orderDTO.setStatus("PENDING");
+        return orderDTO;
+    }
+}
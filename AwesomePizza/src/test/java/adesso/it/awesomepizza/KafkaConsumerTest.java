@@ -0,0 +1,205 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.error.DatabaseException;
+import adesso.it.awesomepizza.error.OrderNotFoundException;
+import adesso.it.awesomepizza.kafka.KafkaConsumer;
+import adesso.it.awesomepizza.kafka.KeyOrderedDispatcher;
+import adesso.it.awesomepizza.kafka.JsonOrderCodec;
+import adesso.it.awesomepizza.kafka.OrderMessageCodec;
+import adesso.it.awesomepizza.kafka.RetryTopicBackoff;
+import adesso.it.awesomepizza.kafka.RetryTopicRouter;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.service.OrderService;
+import adesso.it.awesomepizza.service.OrderStatusBroadcaster;
+import adesso.it.awesomepizza.service.OrderStatusWriteBehind;
+import adesso.it.awesomepizza.dto.OrderDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
+import static org.mockito.Mockito.*;
+
+public class KafkaConsumerTest {
+
+    @Mock
+    OrderService orderService;
+
+    @Mock
+    OrderStatusBroadcaster orderStatusBroadcaster;
+
+    @Mock
+    OrderStatusWriteBehind orderStatusWriteBehind;
+
+    @Mock
+    RetryTopicRouter retryTopicRouter;
+
+    @Mock
+    RetryTopicBackoff retryTopicBackoff;
+
+    OrderMessageCodec orderMessageCodec = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY);
+
+    KafkaConsumer kafkaConsumer;
+
+    private long offset;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        kafkaConsumer = new KafkaConsumer(orderService, orderMessageCodec, new KeyOrderedDispatcher(Runnable::run, 1),
+                orderStatusBroadcaster, orderStatusWriteBehind, retryTopicRouter, retryTopicBackoff);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReceiveMessagesHandsUpdatesToWriteBehind() throws Exception {
+        when(orderStatusWriteBehind.isEnabled()).thenReturn(true);
+        ArgumentCaptor<List<Order>> ordersCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<BiConsumer<Order, Exception>> onFailureCaptor = ArgumentCaptor.forClass(BiConsumer.class);
+        ConsumerRecord<String, byte[]> completed = binary("1", "COMPLETED");
+
+        kafkaConsumer.receiveMessages(List.of(
+                binary("1", "IN_PROGRESS"),
+                completed));
+
+        verify(orderStatusWriteBehind, times(1)).submit(ordersCaptor.capture(), onFailureCaptor.capture());
+        assertEquals(2, ordersCaptor.getValue().size());
+        verify(orderService, never()).processPizzaOrderMessages(anyList());
+        verifyNoInteractions(orderStatusBroadcaster);
+
+        DatabaseException failure = new DatabaseException("update failed");
+        onFailureCaptor.getValue().accept(ordersCaptor.getValue().get(1), failure);
+        verify(retryTopicRouter, times(1)).retry(completed, failure);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReceiveMessagesProcessesReadableMessagesAsOneBatch() throws Exception {
+        ArgumentCaptor<List<Order>> ordersCaptor = ArgumentCaptor.forClass(List.class);
+        ConsumerRecord<String, byte[]> unreadable = json("not json");
+        when(orderService.processPizzaOrderMessages(anyList()))
+                .thenAnswer(invocation -> ((List<Order>) invocation.getArgument(0)).subList(1, 2));
+
+        kafkaConsumer.receiveMessages(List.of(
+                json("{\"orderId\":\"1\",\"status\":\"IN_PROGRESS\",\"orderTime\":\"2024-05-01T12:00:00\"}"),
+                unreadable,
+                binary("2", "COMPLETED")));
+
+        verify(orderService, times(1)).processPizzaOrderMessages(ordersCaptor.capture());
+        assertEquals(2, ordersCaptor.getValue().size());
+        assertEquals("1", ordersCaptor.getValue().get(0).getOrderId());
+        assertEquals("2", ordersCaptor.getValue().get(1).getOrderId());
+        verify(orderService, never()).processPizzaOrderMessage(any());
+        verify(orderStatusBroadcaster, times(1)).publish(argThat(order -> "2".equals(order.getOrderId())));
+        verify(orderStatusBroadcaster, never()).publish(argThat(order -> "1".equals(order.getOrderId())));
+        verify(retryTopicRouter, times(1)).deadLetter(eq(unreadable), any());
+        verify(retryTopicRouter, never()).retry(any(), any());
+    }
+
+    @Test
+    public void testReceiveMessagesRetriesFailedMessageWhenBatchFails() throws Exception {
+        when(orderService.processPizzaOrderMessages(anyList())).thenThrow(new DatabaseException("batch failed"));
+        doThrow(new OrderNotFoundException("Order not found with id: 1"))
+                .when(orderService).processPizzaOrderMessage(argThat(order -> "1".equals(order.getOrderId())));
+        doReturn(true).when(orderService).processPizzaOrderMessage(argThat(order -> "2".equals(order.getOrderId())));
+        ConsumerRecord<String, byte[]> failing = binary("1", "COMPLETED");
+
+        kafkaConsumer.receiveMessages(List.of(
+                failing,
+                binary("2", "COMPLETED")));
+
+        verify(orderService, times(2)).processPizzaOrderMessage(any(Order.class));
+        verify(orderStatusBroadcaster, times(1)).publish(argThat(order -> "2".equals(order.getOrderId())));
+        verify(orderStatusBroadcaster, never()).publish(argThat(order -> "1".equals(order.getOrderId())));
+        verify(retryTopicRouter, times(1)).retry(eq(failing), any(OrderNotFoundException.class));
+    }
+
+    @Test
+    public void testReceiveMessagesDeadLettersUnsupportedContentType() throws Exception {
+        ConsumerRecord<String, byte[]> record = binary("1", "COMPLETED");
+        record.headers().remove(WireFormat.HEADER);
+        record.headers().add(WireFormat.HEADER, "application/xml".getBytes(StandardCharsets.UTF_8));
+
+        kafkaConsumer.receiveMessages(List.of(record));
+
+        verifyNoInteractions(orderService, orderStatusBroadcaster);
+        verify(retryTopicRouter, times(1)).deadLetter(eq(record), any(IllegalArgumentException.class));
+    }
+
+    @Test
+    public void testReceiveRetryMessagePausesPartitionUntilDue() throws Exception {
+        ConsumerRecord<String, byte[]> record = binary("1", "COMPLETED");
+        record.headers().add(RetryTopicRouter.DUE_AT_HEADER,
+                ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis() + 60_000).array());
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        kafkaConsumer.receiveRetryMessage(record, acknowledgment);
+
+        verify(retryTopicBackoff, times(1)).pause(eq("preparation-retry-listener"),
+                eq(new TopicPartition(record.topic(), record.partition())), longThat(delay -> delay > 0));
+        verify(acknowledgment, times(1)).nack(Duration.ZERO);
+        verify(acknowledgment, never()).acknowledge();
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    public void testReceiveRetryMessageIgnoresStaleStatus() throws Exception {
+        when(orderService.processPizzaOrderMessage(any(Order.class))).thenReturn(false);
+        ConsumerRecord<String, byte[]> record = binary("1", "IN_PROGRESS");
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        kafkaConsumer.receiveRetryMessage(record, acknowledgment);
+
+        verify(acknowledgment, times(1)).acknowledge();
+        verify(retryTopicRouter, never()).retry(any(), any());
+        verifyNoInteractions(orderStatusBroadcaster);
+    }
+
+    @Test
+    public void testReceiveRetryMessageMovesFailureToNextTier() throws Exception {
+        OrderNotFoundException failure = new OrderNotFoundException("Order not found with id: 1");
+        doThrow(failure).when(orderService).processPizzaOrderMessage(any(Order.class));
+        ConsumerRecord<String, byte[]> record = binary("1", "COMPLETED");
+        Acknowledgment acknowledgment = mock(Acknowledgment.class);
+
+        kafkaConsumer.receiveRetryMessage(record, acknowledgment);
+
+        verify(retryTopicRouter, times(1)).retry(record, failure);
+        verify(acknowledgment, times(1)).acknowledge();
+        verifyNoInteractions(orderStatusBroadcaster);
+    }
+
+    /**
+     * A message from a producer that predates the content type header.
+     */
+    private ConsumerRecord<String, byte[]> json(String message) {
+        return new ConsumerRecord<>("preparation-topic", 0, offset++, null, message.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ConsumerRecord<String, byte[]> binary(String orderId, String status) throws Exception {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(orderId);
+        orderDTO.setStatus(status);
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>("preparation-topic", 0, offset++, orderId,
+                orderMessageCodec.encode(orderDTO));
+        record.headers().add(WireFormat.HEADER, WireFormat.BINARY.headerValue());
+        return record;
+    }
+}
@@ -0,0 +1,81 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.config.KafkaConfig;
+import adesso.it.awesomepizza.kafka.JsonOrderCodec;
+import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.kafka.OrderMessageCodec;
+import adesso.it.awesomepizza.kafka.ProducerProfile;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class KafkaProducerTest {
+
+    @Mock
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    List<ProducerRecord<String, byte[]>> records = new ArrayList<>();
+    List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>();
+    KafkaProducer kafkaProducer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+            records.add(invocation.getArgument(0));
+            sends.add(future);
+            return future;
+        });
+        kafkaProducer = new KafkaProducer(kafkaTemplate,
+                new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY), meterRegistry);
+    }
+
+    @Test
+    public void testPublishSendsKeyedRecordWithContentType() {
+        CompletableFuture<SendResult<String, byte[]>> future = kafkaProducer.publish("ORD-1", WireFormat.BINARY, new byte[]{1});
+        sends.get(0).completeExceptionally(new KafkaProducerException(null, "Failed to send", new TimeoutException("broker down")));
+
+        assertTrue(future.isCompletedExceptionally());
+        assertEquals("order-topic", records.get(0).topic());
+        assertEquals("ORD-1", records.get(0).key());
+        assertNotNull(records.get(0).headers().lastHeader(WireFormat.HEADER));
+        assertEquals(1, meterRegistry.get("kafka.send").tag("topic", "order-topic").tag("outcome", "failure").timer().count());
+    }
+
+    @Test
+    public void testProducerProfileKeepsExplicitSettings() {
+        DefaultKafkaProducerFactory<String, byte[]> producerFactory = new DefaultKafkaProducerFactory<>(
+                Map.of(ProducerConfig.LINGER_MS_CONFIG, 5));
+
+        new KafkaConfig().producerProfileCustomizer(ProducerProfile.THROUGHPUT).customize(producerFactory);
+
+        Map<String, Object> configs = producerFactory.getConfigurationProperties();
+        assertEquals(5, configs.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(131_072, configs.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("lz4", configs.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(true, configs.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+    }
+}
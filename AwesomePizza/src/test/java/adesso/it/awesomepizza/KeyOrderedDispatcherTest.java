@@ -0,0 +1,74 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.kafka.KeyOrderedDispatcher;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class KeyOrderedDispatcherTest {
+
+    ExecutorService executor;
+    KeyOrderedDispatcher dispatcher;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        dispatcher = new KeyOrderedDispatcher(executor, 4);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        dispatcher.close();
+    }
+
+    @Test
+    public void testDispatchKeepsPerKeyOrderAndUsesSeveralLanes() {
+        List<String[]> records = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            records.add(new String[]{"ORD-" + (i % 50), String.valueOf(i)});
+        }
+        Map<String, List<Integer>> seenByKey = new ConcurrentHashMap<>();
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+
+        dispatcher.dispatch(records, record -> record[0], lane -> {
+            threads.add(Thread.currentThread().getName());
+            for (String[] record : lane) {
+                seenByKey.computeIfAbsent(record[0], key -> new CopyOnWriteArrayList<>()).add(Integer.parseInt(record[1]));
+            }
+        });
+
+        assertEquals(50, seenByKey.size());
+        for (List<Integer> sequence : seenByKey.values()) {
+            assertEquals(20, sequence.size());
+            for (int i = 1; i < sequence.size(); i++) {
+                assertTrue(sequence.get(i - 1) < sequence.get(i));
+            }
+        }
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    public void testDispatchPropagatesLaneFailure() {
+        List<String> records = List.of("a", "b", "c", "d", "e");
+
+        assertThrows(IllegalStateException.class, () -> dispatcher.dispatch(records, Function.identity(), lane -> {
+            if (lane.contains("c")) {
+                throw new IllegalStateException("lane failed");
+            }
+        }));
+    }
+}
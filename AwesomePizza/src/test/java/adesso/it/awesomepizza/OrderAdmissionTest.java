@@ -0,0 +1,125 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.config.AdmissionProperties;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.OrderRejectedException;
+import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.service.OrderAdmission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+public class OrderAdmissionTest {
+
+    @Mock
+    OrderRepository orderRepository;
+
+    @Mock
+    KafkaProducer kafkaProducer;
+
+    AdmissionProperties admissionProperties;
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setup() {
+        MockitoAnnotations.openMocks(this);
+        admissionProperties = new AdmissionProperties();
+        admissionProperties.setInitialLimit(4);
+        admissionProperties.setMinLimit(1);
+        admissionProperties.setMaxLimit(8);
+        admissionProperties.setLatencyTarget(Duration.ofMillis(20));
+        admissionProperties.setBackoffRatio(0.5);
+        admissionProperties.setMaxPendingOrders(100);
+        admissionProperties.setRetryAfter(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testPlacementsBeyondLimitAreRejected() {
+        OrderAdmission orderAdmission = new OrderAdmission(admissionProperties, orderRepository, kafkaProducer, meterRegistry);
+        List<OrderAdmission.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(orderAdmission.admit());
+        }
+
+        OrderRejectedException rejected = assertThrows(OrderRejectedException.class, orderAdmission::admit);
+
+        assertEquals(Duration.ofSeconds(2), rejected.getRetryAfter());
+        assertEquals(4, orderAdmission.getInFlight());
+        assertEquals(1, rejections("concurrency"));
+        permits.forEach(OrderAdmission.Permit::close);
+        assertEquals(0, orderAdmission.getInFlight());
+    }
+
+    @Test
+    public void testLimitGrowsWithFastPlacementsUnderLoad() {
+        OrderAdmission orderAdmission = new OrderAdmission(admissionProperties, orderRepository, kafkaProducer, meterRegistry);
+
+        List<OrderAdmission.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(orderAdmission.admit());
+        }
+        permits.forEach(OrderAdmission.Permit::close);
+
+        assertEquals(6, orderAdmission.getLimit());
+    }
+
+    @Test
+    public void testLimitShrinksWithSlowPlacements() throws InterruptedException {
+        OrderAdmission orderAdmission = new OrderAdmission(admissionProperties, orderRepository, kafkaProducer, meterRegistry);
+
+        try (OrderAdmission.Permit permit = orderAdmission.admit()) {
+            Thread.sleep(30);
+        }
+
+        assertEquals(2, orderAdmission.getLimit());
+    }
+
+    @Test
+    public void testBacklogAndProducerBufferShedOrders() {
+        OrderAdmission orderAdmission = new OrderAdmission(admissionProperties, orderRepository, kafkaProducer, meterRegistry);
+
+        when(orderRepository.countByStatus(OrderStatus.PENDING)).thenReturn(101L);
+        orderAdmission.refresh();
+        assertThrows(OrderRejectedException.class, orderAdmission::admit);
+
+        when(orderRepository.countByStatus(OrderStatus.PENDING)).thenReturn(10L);
+        when(kafkaProducer.getBufferUsage()).thenReturn(0.95);
+        orderAdmission.refresh();
+        assertThrows(OrderRejectedException.class, orderAdmission::admit);
+
+        when(kafkaProducer.getBufferUsage()).thenReturn(0.1);
+        orderAdmission.refresh();
+        orderAdmission.admit().close();
+
+        assertEquals(1, rejections("backlog"));
+        assertEquals(1, rejections("producer_buffer"));
+    }
+
+    @Test
+    public void testDisabledAdmissionAdmitsEverything() {
+        admissionProperties.setEnabled(false);
+        OrderAdmission orderAdmission = new OrderAdmission(admissionProperties, orderRepository, kafkaProducer, meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            orderAdmission.admit();
+        }
+
+        assertEquals(0, orderAdmission.getInFlight());
+    }
+
+    private double rejections(String reason) {
+        return meterRegistry.get("order.admission.rejected").tag("reason", reason).counter().count();
+    }
+}
@@ -0,0 +1,145 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.service.HiLoOrderIdGenerator;
+import adesso.it.awesomepizza.service.OrderIdBlockAllocator;
+import adesso.it.awesomepizza.service.OrderIdGenerator;
+import adesso.it.awesomepizza.service.SnowflakeOrderIdGenerator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class OrderIdGeneratorTest {
+
+    private static final int INSTANCES = 4;
+    private static final int THREADS_PER_INSTANCE = 4;
+    private static final int IDS_PER_THREAD = 5_000;
+
+    @Autowired
+    DataSource dataSource;
+
+    OrderIdBlockAllocator blockAllocator;
+
+    @BeforeEach
+    public void setUp() {
+        blockAllocator = new OrderIdBlockAllocator(dataSource);
+    }
+
+    @Test
+    public void testToOrderIdIsFixedWidthAndOrdered() {
+        assertEquals("ORD-0000000000000", OrderIdGenerator.toOrderId(0));
+        assertEquals("ORD-000000000000Z", OrderIdGenerator.toOrderId(31));
+        assertEquals("ORD-0000000000010", OrderIdGenerator.toOrderId(32));
+        assertTrue(OrderIdGenerator.toOrderId(999_999).compareTo(OrderIdGenerator.toOrderId(1_000_000)) < 0);
+        assertTrue(OrderIdGenerator.toOrderId(Long.MAX_VALUE).compareTo(OrderIdGenerator.toOrderId(Long.MAX_VALUE - 1)) > 0);
+    }
+
+    @Test
+    public void testSnowflakeIdsAreUniqueAcrossThreadsAndNodes() throws Exception {
+        assertUnique(instance -> new SnowflakeOrderIdGenerator(instance));
+    }
+
+    @Test
+    public void testSnowflakeIdsKeepIncreasingWhenClockMovesBackwards() {
+        MutableClock clock = new MutableClock(SnowflakeOrderIdGenerator.EPOCH + 10_000);
+        SnowflakeOrderIdGenerator generator = new SnowflakeOrderIdGenerator(1, clock);
+
+        long first = generator.nextId();
+        clock.millis -= 5_000;
+        long second = generator.nextId();
+        clock.millis += 10_000;
+        long third = generator.nextId();
+
+        assertTrue(second > first);
+        assertTrue(third > second);
+    }
+
+    @Test
+    public void testHiLoIdsAreUniqueAcrossThreadsAndInstancesSharingTheDatabase() throws Exception {
+        assertUnique(instance -> new HiLoOrderIdGenerator(blockAllocator, 100));
+    }
+
+    @Test
+    public void testHiLoGeneratorStartsNewBlockAfterRestart() {
+        HiLoOrderIdGenerator beforeRestart = new HiLoOrderIdGenerator(blockAllocator, 10);
+        String lastBeforeRestart = beforeRestart.nextOrderId();
+
+        HiLoOrderIdGenerator afterRestart = new HiLoOrderIdGenerator(blockAllocator, 10);
+
+        assertTrue(afterRestart.nextOrderId().compareTo(lastBeforeRestart) > 0);
+    }
+
+    private void assertUnique(Function<Integer, OrderIdGenerator> generatorFactory) throws Exception {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCES * THREADS_PER_INSTANCE);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int instance = 0; instance < INSTANCES; instance++) {
+                OrderIdGenerator generator = generatorFactory.apply(instance);
+                for (int thread = 0; thread < THREADS_PER_INSTANCE; thread++) {
+                    futures.add(executor.submit(() -> {
+                        for (int i = 0; i < IDS_PER_THREAD; i++) {
+                            ids.add(generator.nextOrderId());
+                        }
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(INSTANCES * THREADS_PER_INSTANCE * IDS_PER_THREAD, ids.size());
+    }
+
+    static class MutableClock extends Clock {
+
+        long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
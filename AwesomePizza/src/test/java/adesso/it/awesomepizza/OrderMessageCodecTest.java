@@ -0,0 +1,136 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.kafka.BinaryOrderCodec;
+import adesso.it.awesomepizza.kafka.JsonOrderCodec;
+import adesso.it.awesomepizza.kafka.OrderMessageCodec;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderMessageCodecTest {
+
+    /**
+     * Encoding of {@link #sampleOrder()}. The worker test decodes the same bytes, keeping both sides of the
+     * version 1 layout in step.
+     */
+    static final String SAMPLE_BINARY = "01372a114f52442d3031485833514a355a384b324d0a4d61726768657269746101c0a4ecceb3ec8503";
+
+    @Test
+    public void testBinaryEncodingMatchesVersion1Layout() {
+        byte[] encoded = new BinaryOrderCodec().encode(sampleOrder());
+
+        assertEquals(SAMPLE_BINARY, HexFormat.of().formatHex(encoded));
+    }
+
+    @Test
+    public void testBinaryRoundTrip() throws IOException {
+        OrderDTO orderDTO = sampleOrder();
+        orderDTO.setNote("Senza cipolla, più basilico");
+        orderDTO.setUpdateTime(LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000));
+
+        Order order = new BinaryOrderCodec().decode(new BinaryOrderCodec().encode(orderDTO));
+
+        assertEquals(orderDTO.getId(), order.getId());
+        assertEquals(orderDTO.getOrderId(), order.getOrderId());
+        assertEquals(orderDTO.getPizzaType(), order.getPizzaType());
+        assertEquals(orderDTO.getNote(), order.getNote());
+        assertEquals(orderDTO.getStatus(), order.getStatus().name());
+        assertEquals(orderDTO.getOrderTime(), order.getOrderTime());
+        assertEquals(orderDTO.getUpdateTime(), order.getUpdateTime());
+    }
+
+    @Test
+    public void testBinaryDecodeRejectsMalformedMessages() {
+        byte[] encoded = new BinaryOrderCodec().encode(sampleOrder());
+        BinaryOrderCodec codec = new BinaryOrderCodec();
+
+        assertThrows(IOException.class, () -> codec.decode(Arrays.copyOf(encoded, encoded.length - 1)));
+        assertThrows(IOException.class, () -> codec.decode(Arrays.copyOf(encoded, encoded.length + 1)));
+        byte[] nextVersion = encoded.clone();
+        nextVersion[0] = 2;
+        assertThrows(IOException.class, () -> codec.decode(nextVersion));
+        assertThrows(IOException.class, () -> codec.decode(new byte[0]));
+    }
+
+    @Test
+    public void testBinaryIsSmallerThanJson() throws IOException {
+        OrderMessageCodec json = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.JSON);
+        OrderMessageCodec binary = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY);
+        OrderDTO orderDTO = sampleOrder();
+        orderDTO.setUpdateTime(orderDTO.getOrderTime().plusMinutes(5));
+
+        byte[] jsonMessage = json.encode(orderDTO);
+        byte[] binaryMessage = binary.encode(orderDTO);
+
+        assertTrue(binaryMessage.length * 3 < jsonMessage.length, binaryMessage.length + " vs " + jsonMessage.length);
+        assertEquals(binary.decode(binaryMessage, WireFormat.BINARY).getUpdateTime(),
+                json.decode(jsonMessage, WireFormat.JSON).getUpdateTime());
+    }
+
+    @Test
+    public void testJsonCodecWritesIsoTimestampsWithoutChangingSharedMapper() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonOrderCodec codec = new JsonOrderCodec(objectMapper);
+
+        String json = new String(codec.encode(sampleOrder()), StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("\"orderTime\":\"2024-05-01T12:00:00.123456\""), json);
+        assertTrue(objectMapper.getRegisteredModuleIds().isEmpty());
+        assertEquals("ORD-1", codec.decode("{\"orderId\":\"ORD-1\",\"oven\":2}".getBytes(StandardCharsets.UTF_8)).getOrderId());
+    }
+
+    @Test
+    public void testJsonCodecIsSharedSafelyBetweenThreads() throws Exception {
+        JsonOrderCodec codec = new JsonOrderCodec(new ObjectMapper());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int thread = t;
+                results.add(executor.submit(() -> {
+                    int matches = 0;
+                    for (int i = 0; i < 1_000; i++) {
+                        OrderDTO orderDTO = sampleOrder();
+                        orderDTO.setOrderId("ORD-" + thread + "-" + i);
+                        Order order = codec.decode(codec.encode(orderDTO));
+                        if (orderDTO.getOrderId().equals(order.getOrderId())
+                                && orderDTO.getOrderTime().equals(order.getOrderTime())) {
+                            matches++;
+                        }
+                    }
+                    return matches;
+                }));
+            }
+            for (Future<Integer> result : results) {
+                assertEquals(1_000, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static OrderDTO sampleOrder() {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setId(42L);
+        orderDTO.setOrderId("ORD-01HX3QJ5Z8K2M");
+        orderDTO.setPizzaType("Margherita");
+        orderDTO.setStatus("PENDING");
+        orderDTO.setOrderTime(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000));
+        return orderDTO;
+    }
+}
@@ -0,0 +1,90 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.service.OrderMetrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OrderMetricsTest {
+
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    SimpleMeterRegistry meterRegistry;
+    OrderMetrics orderMetrics;
+
+    @BeforeEach
+    public void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        orderMetrics = new OrderMetrics(meterRegistry, 2);
+    }
+
+    @Test
+    public void testStageDurationsAreDerivedFromOrderAndUpdateTimes() {
+        Order order = order("Margherita");
+        orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.placed(order)));
+
+        LocalDateTime started = ORDER_TIME.plusSeconds(2);
+        orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.of(order, OrderStatus.IN_PROGRESS, started)));
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        order.setUpdateTime(started);
+        orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.of(order, OrderStatus.COMPLETED, started.plusSeconds(5))));
+
+        assertEquals(2000, stage("PENDING", "IN_PROGRESS").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(5000, stage("IN_PROGRESS", "COMPLETED").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(7000, meterRegistry.get("order.lifecycle.duration").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, statusChanges("PENDING", "margherita"));
+        assertEquals(1, statusChanges("COMPLETED", "margherita"));
+    }
+
+    @Test
+    public void testRepeatedStatusIsCountedWithoutStageDuration() {
+        Order order = order("Margherita");
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        order.setUpdateTime(ORDER_TIME.plusSeconds(1));
+
+        orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.of(order, OrderStatus.IN_PROGRESS, ORDER_TIME.plusSeconds(3))));
+
+        assertEquals(1, statusChanges("IN_PROGRESS", "margherita"));
+        assertNull(meterRegistry.find("order.stage.duration").timer());
+    }
+
+    @Test
+    public void testPizzaTypeTagsAreBounded() {
+        for (String pizzaType : List.of("Margherita", " margherita ", "Diavola", "Capricciosa", "Marinara")) {
+            orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.placed(order(pizzaType))));
+        }
+        orderMetrics.recordAfterCommit(List.of(OrderMetrics.StatusChange.placed(order(null))));
+
+        assertEquals(2, statusChanges("PENDING", "margherita"));
+        assertEquals(1, statusChanges("PENDING", "diavola"));
+        assertEquals(2, statusChanges("PENDING", "other"));
+        assertEquals(1, statusChanges("PENDING", "unknown"));
+    }
+
+    private Timer stage(String from, String to) {
+        return meterRegistry.get("order.stage.duration").tags("from", from, "to", to).timer();
+    }
+
+    private double statusChanges(String status, String pizzaType) {
+        return meterRegistry.get("order.status.changes").tags("status", status, "pizza_type", pizzaType).counter().count();
+    }
+
+    private Order order(String pizzaType) {
+        Order order = new Order();
+        order.setOrderId("ORD-1");
+        order.setPizzaType(pizzaType);
+        order.setStatus(OrderStatus.PENDING);
+        order.setOrderTime(ORDER_TIME);
+        return order;
+    }
+}
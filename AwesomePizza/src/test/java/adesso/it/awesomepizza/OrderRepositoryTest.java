@@ -0,0 +1,110 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+public class OrderRepositoryTest {
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    private static final LocalDateTime ORDER_TIME = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @BeforeEach
+    public void setUp() {
+        for (int i = 0; i < 25; i++) {
+            Order order = new Order();
+            order.setOrderId("ORD-" + i);
+            order.setPizzaType(i % 5 == 0 ? "Diavola" : "Margherita");
+            order.setStatus(i < 20 ? OrderStatus.PENDING : OrderStatus.COMPLETED);
+            // Two orders per minute, so pages have to break ties on the primary key.
+            order.setOrderTime(ORDER_TIME.plusMinutes(i / 2));
+            if (i >= 20) {
+                order.setUpdateTime(ORDER_TIME.plusHours(1).plusMinutes(24 - i));
+            }
+            orderRepository.save(order);
+        }
+        orderRepository.flush();
+    }
+
+    @Test
+    public void testKeysetPagesCoverAllOrdersOnce() {
+        long cursor = 0L;
+        int seen = 0;
+        List<Order> page;
+        do {
+            page = orderRepository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(10));
+            for (Order order : page) {
+                assertTrue(order.getId() > cursor);
+                cursor = order.getId();
+                seen++;
+            }
+        } while (!page.isEmpty());
+
+        assertEquals(25, seen);
+    }
+
+    @Test
+    public void testStreamAllByOrderById() {
+        try (Stream<Order> orders = orderRepository.streamAllByOrderById()) {
+            assertEquals(25, orders.count());
+        }
+    }
+
+    @Test
+    public void testStatusAndOrderTimePagesCoverMatchingOrdersOnce() {
+        LocalDateTime from = ORDER_TIME.plusMinutes(1);
+        LocalDateTime to = ORDER_TIME.plusMinutes(9);
+        LocalDateTime afterTime = from;
+        long afterId = 0L;
+        int seen = 0;
+        List<OrderDTO> page;
+        do {
+            page = orderRepository.findPageByStatusAndOrderTime(OrderStatus.PENDING, null, from, to, afterTime, afterId, Limit.of(3));
+            for (OrderDTO order : page) {
+                assertEquals("PENDING", order.getStatus());
+                assertTrue(order.getOrderTime().isAfter(afterTime)
+                        || order.getOrderTime().isEqual(afterTime) && order.getId() > afterId);
+                afterTime = order.getOrderTime();
+                afterId = order.getId();
+                seen++;
+            }
+        } while (!page.isEmpty());
+
+        // ORD-2 to ORD-17 were placed in [+1 min, +9 min).
+        assertEquals(16, seen);
+    }
+
+    @Test
+    public void testPizzaTypeFilter() {
+        List<OrderDTO> orders = orderRepository.findPageByStatusAndOrderTime(OrderStatus.PENDING, "Diavola",
+                ORDER_TIME, ORDER_TIME.plusDays(1), ORDER_TIME, 0L, Limit.of(50));
+
+        assertEquals(List.of("ORD-0", "ORD-5", "ORD-10", "ORD-15"), orders.stream().map(OrderDTO::getOrderId).toList());
+    }
+
+    @Test
+    public void testStatusAndUpdateTimeOrdersByUpdateTime() {
+        List<OrderDTO> orders = orderRepository.findPageByStatusAndUpdateTime(OrderStatus.COMPLETED, null,
+                ORDER_TIME, ORDER_TIME.plusDays(1), ORDER_TIME, 0L, Limit.of(50));
+
+        assertEquals(List.of("ORD-24", "ORD-23", "ORD-22", "ORD-21", "ORD-20"),
+                orders.stream().map(OrderDTO::getOrderId).toList());
+        assertEquals(5, orderRepository.countByStatus(OrderStatus.COMPLETED));
+    }
+}
@@ -2,26 +2,46 @@ package adesso.it.awesomepizza;
 
 
 import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.dto.OrderPageDTO;
+import adesso.it.awesomepizza.dto.OrderQueryPageDTO;
 import adesso.it.awesomepizza.entity.Order;
 import adesso.it.awesomepizza.entity.OrderStatus;
 import adesso.it.awesomepizza.error.OrderNotFoundException;
 import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.entity.OutboxMessage;
 import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
+import adesso.it.awesomepizza.service.OrderIdGenerator;
+import adesso.it.awesomepizza.service.OrderMetrics;
+import adesso.it.awesomepizza.service.OrderQuery;
 import adesso.it.awesomepizza.service.OrderService;
+import adesso.it.awesomepizza.service.OrderStatistics;
+import adesso.it.awesomepizza.service.OrderStatusBuffer;
+import adesso.it.awesomepizza.service.OrderStatusCache;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.Limit;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public class OrderServiceTest {
 
@@ -31,6 +51,24 @@ public class OrderServiceTest {
     @Mock
     KafkaProducer kafkaProducer;
 
+    @Mock
+    OrderIdGenerator orderIdGenerator;
+
+    @Mock
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    OrderStatusCache orderStatusCache;
+
+    @Mock
+    OrderMetrics orderMetrics;
+
+    @Mock
+    OrderStatistics orderStatistics;
+
+    @Spy
+    OrderStatusBuffer orderStatusBuffer = new OrderStatusBuffer(new SimpleMeterRegistry());
+
     @InjectMocks
     OrderService orderService;
 
@@ -42,29 +80,116 @@ public class OrderServiceTest {
     @Test
     public void testPlaceOrder() throws JsonProcessingException {
 
-        ArgumentCaptor<OrderDTO> orderCaptor = ArgumentCaptor.forClass(OrderDTO.class);
+        ArgumentCaptor<OutboxMessage> outboxCaptor = ArgumentCaptor.forClass(OutboxMessage.class);
 
         OrderDTO orderDTO = new OrderDTO();
         orderDTO.setPizzaType("Margherita");
         orderDTO.setNote(null);
 
         Order order=new Order();
+        order.setOrderId("ORD-0000000000001");
         order.setPizzaType(orderDTO.getPizzaType());
         order.setNote(orderDTO.getNote());
-        order.setStatus(OrderStatus.PENDING.name());
+        order.setStatus(OrderStatus.PENDING);
         order.setOrderTime(LocalDateTime.now());
         order.setUpdateTime(null);
 
         when(orderRepository.save(any(Order.class))).thenReturn(order);
+        when(orderIdGenerator.nextOrderId()).thenReturn("ORD-0000000000001");
+        when(kafkaProducer.serialize(any(OrderDTO.class))).thenReturn(new byte[]{1, 2});
+        when(kafkaProducer.getWireFormat()).thenReturn(WireFormat.BINARY);
 
         OrderDTO result = orderService.placeOrder(orderDTO);
 
+        assertEquals(order.getOrderId(), result.getOrderId());
+        verify(kafkaProducer, times(1)).serialize(result);
         assertEquals(order.getPizzaType(), result.getPizzaType());
         assertEquals(order.getNote(), result.getNote());
-        assertEquals(order.getStatus(), result.getStatus());
+        assertEquals(order.getStatus().name(), result.getStatus());
         assertEquals(order.getOrderTime(), result.getOrderTime());
         assertEquals(order.getUpdateTime(), result.getUpdateTime());
-        verify(kafkaProducer, times(1)).sendMessage(orderCaptor.capture());
+        verify(outboxMessageRepository, times(1)).save(outboxCaptor.capture());
+        assertEquals("ORD-0000000000001", outboxCaptor.getValue().getOrderId());
+        assertArrayEquals(new byte[]{1, 2}, outboxCaptor.getValue().getPayload());
+        assertEquals(WireFormat.BINARY, outboxCaptor.getValue().getFormat());
+        verify(kafkaProducer, never()).publish(anyString(), any(), any());
+    }
+
+    @Test
+    public void testPlaceOrderWithKnownIdempotencyKeyReturnsExistingOrder() throws JsonProcessingException {
+        Order existingOrder = new Order();
+        existingOrder.setOrderId("ORD-0000000000001");
+        existingOrder.setPizzaType("Margherita");
+        existingOrder.setStatus(OrderStatus.PENDING);
+        existingOrder.setIdempotencyKey("key-1");
+        when(orderRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(existingOrder));
+
+        OrderDTO result = orderService.placeOrder(orderDTO("Margherita"), "key-1");
+
+        assertEquals("ORD-0000000000001", result.getOrderId());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderIdGenerator, never()).nextOrderId();
+        verify(outboxMessageRepository, never()).save(any(OutboxMessage.class));
+        verify(kafkaProducer, never()).serialize(any(OrderDTO.class));
+    }
+
+    @Test
+    public void testFindOrderByIdempotencyKey() {
+        Order existingOrder = new Order();
+        existingOrder.setOrderId("ORD-0000000000001");
+        existingOrder.setStatus(OrderStatus.IN_PROGRESS);
+        when(orderRepository.findByIdempotencyKey("key-1")).thenReturn(Optional.of(existingOrder));
+        when(orderRepository.findByIdempotencyKey("key-2")).thenReturn(Optional.empty());
+
+        assertEquals("IN_PROGRESS", orderService.findOrderByIdempotencyKey("key-1").orElseThrow().getStatus());
+        assertTrue(orderService.findOrderByIdempotencyKey("key-2").isEmpty());
+    }
+
+    @Test
+    public void testPlaceOrderStoresIdempotencyKey() throws JsonProcessingException {
+        ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
+        when(orderRepository.findByIdempotencyKey("key-2")).thenReturn(Optional.empty());
+        when(orderRepository.save(any(Order.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderIdGenerator.nextOrderId()).thenReturn("ORD-0000000000002");
+        when(kafkaProducer.serialize(any(OrderDTO.class))).thenReturn(new byte[]{1, 2});
+        when(kafkaProducer.getWireFormat()).thenReturn(WireFormat.BINARY);
+
+        orderService.placeOrder(orderDTO("Margherita"), "key-2");
+
+        verify(orderRepository, times(1)).save(orderCaptor.capture());
+        assertEquals("key-2", orderCaptor.getValue().getIdempotencyKey());
+        verify(outboxMessageRepository, times(1)).save(any(OutboxMessage.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testPlaceOrders() throws JsonProcessingException {
+        ArgumentCaptor<List<OutboxMessage>> outboxCaptor = ArgumentCaptor.forClass(List.class);
+
+        when(orderRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderIdGenerator.nextOrderId()).thenReturn("ORD-0000000000001", "ORD-0000000000002");
+        when(kafkaProducer.serialize(any(OrderDTO.class))).thenReturn(new byte[]{1, 2});
+        when(kafkaProducer.getWireFormat()).thenReturn(WireFormat.BINARY);
+
+        List<OrderDTO> result = orderService.placeOrders(List.of(orderDTO("Margherita"), orderDTO("Diavola")));
+
+        assertEquals(List.of("ORD-0000000000001", "ORD-0000000000002"),
+                result.stream().map(OrderDTO::getOrderId).toList());
+        assertEquals("Diavola", result.get(1).getPizzaType());
+        assertEquals(OrderStatus.PENDING.name(), result.get(1).getStatus());
+        verify(orderRepository, times(1)).saveAll(anyList());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(outboxMessageRepository, times(1)).saveAll(outboxCaptor.capture());
+        assertEquals(List.of("ORD-0000000000001", "ORD-0000000000002"),
+                outboxCaptor.getValue().stream().map(OutboxMessage::getOrderId).toList());
+        verify(orderStatusCache, times(1)).putAfterCommit(result);
+        verify(kafkaProducer, never()).publish(anyString(), any(), any());
+    }
+
+    private OrderDTO orderDTO(String pizzaType) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setPizzaType(pizzaType);
+        return orderDTO;
     }
 
     @Test
@@ -73,7 +198,7 @@ public class OrderServiceTest {
         Order order = new Order();
         order.setOrderId(orderId);
         order.setPizzaType("Margherita");
-        order.setStatus("PENDING");
+        order.setStatus(OrderStatus.PENDING);
 
         when(orderRepository.findByOrderId(orderId)).thenReturn(Optional.of(order));
 
@@ -84,9 +209,45 @@ public class OrderServiceTest {
         assertEquals("PENDING", result.getStatus());
 
         verify(orderRepository, times(1)).findByOrderId(orderId);
+        verify(orderStatusCache, times(1)).putIfAbsent(result);
+    }
+
+    @Test
+    public void testGetOrderStatusById_CacheHit() {
+        String orderId = "1";
+        OrderDTO cachedOrder = new OrderDTO();
+        cachedOrder.setOrderId(orderId);
+        cachedOrder.setStatus("IN_PROGRESS");
+
+        when(orderStatusCache.get(orderId)).thenReturn(cachedOrder);
+
+        OrderDTO result = orderService.getOrderStatusById(orderId);
+
+        assertEquals("IN_PROGRESS", result.getStatus());
+        verify(orderRepository, never()).findByOrderId(anyString());
     }
 
 
+    @Test
+    public void testGetOrderStatusById_BufferedUpdateTakesPrecedence() {
+        OrderDTO cachedOrder = new OrderDTO();
+        cachedOrder.setOrderId("1");
+        cachedOrder.setStatus("PENDING");
+        Order update = new Order();
+        update.setOrderId("1");
+        update.setStatus(OrderStatus.COMPLETED);
+        update.setUpdateTime(LocalDateTime.of(2024, 5, 1, 12, 0));
+
+        when(orderStatusCache.get("1")).thenReturn(cachedOrder);
+        orderStatusBuffer.offer(update);
+
+        OrderDTO result = orderService.getOrderStatusById("1");
+
+        assertEquals("COMPLETED", result.getStatus());
+        assertEquals(update.getUpdateTime(), result.getUpdateTime());
+        assertEquals("PENDING", cachedOrder.getStatus());
+    }
+
     @Test
     public void testGetOrderStatusById_NotFound() {
         String orderId = "1";
@@ -105,11 +266,11 @@ public class OrderServiceTest {
         String orderId = "1";
         Order existingOrder = new Order();
         existingOrder.setOrderId(orderId);
-        existingOrder.setStatus("PENDING");
+        existingOrder.setStatus(OrderStatus.PENDING);
 
         Order updatedOrder = new Order();
         updatedOrder.setOrderId(orderId);
-        updatedOrder.setStatus("COMPLETED");
+        updatedOrder.setStatus(OrderStatus.COMPLETED);
 
         when(orderRepository.findByOrderId(orderId)).thenReturn(Optional.of(existingOrder));
         when(orderRepository.save(any(Order.class))).thenReturn(updatedOrder);
@@ -118,6 +279,135 @@ public class OrderServiceTest {
 
         verify(orderRepository, times(1)).findByOrderId(orderId);
         verify(orderRepository, times(1)).save(existingOrder);
+        verify(orderStatusCache, times(1)).putAfterCommit(anyList());
+        verify(orderMetrics, times(1)).recordAfterCommit(anyList());
+    }
+
+    @Test
+    public void testProcessPizzaOrderMessageKeepsWorkerUpdateTime() {
+        LocalDateTime updateTime = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Order existingOrder = new Order();
+        existingOrder.setOrderId("1");
+        existingOrder.setStatus(OrderStatus.PENDING);
+        Order update = statusUpdate("1", OrderStatus.IN_PROGRESS);
+        update.setUpdateTime(updateTime);
+        when(orderRepository.findByOrderId("1")).thenReturn(Optional.of(existingOrder));
+
+        assertTrue(orderService.processPizzaOrderMessage(update));
+
+        assertEquals(updateTime, existingOrder.getUpdateTime());
+    }
+
+    @Test
+    public void testProcessPizzaOrderMessageIgnoresStaleStatus() {
+        Order existingOrder = new Order();
+        existingOrder.setOrderId("1");
+        existingOrder.setStatus(OrderStatus.COMPLETED);
+        when(orderRepository.findByOrderId("1")).thenReturn(Optional.of(existingOrder));
+
+        assertFalse(orderService.processPizzaOrderMessage(statusUpdate("1", OrderStatus.IN_PROGRESS)));
+
+        assertEquals(OrderStatus.COMPLETED, existingOrder.getStatus());
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderMetrics, never()).recordAfterCommit(anyList());
+        verify(orderStatistics, never()).applyAfterCommit(anyList());
+    }
+
+    @Test
+    public void testProcessPizzaOrderMessages() {
+        Order first = new Order();
+        first.setOrderId("1");
+        first.setStatus(OrderStatus.PENDING);
+        Order second = new Order();
+        second.setOrderId("2");
+        second.setStatus(OrderStatus.PENDING);
+
+        when(orderRepository.findByOrderIdIn(anyCollection())).thenReturn(List.of(first, second));
+
+        List<Order> updates = List.of(
+                statusUpdate("1", OrderStatus.IN_PROGRESS),
+                statusUpdate("2", OrderStatus.IN_PROGRESS),
+                statusUpdate("1", OrderStatus.COMPLETED),
+                statusUpdate("2", OrderStatus.PENDING),
+                statusUpdate("3", OrderStatus.COMPLETED));
+        List<Order> applied = orderService.processPizzaOrderMessages(updates);
+
+        assertEquals(updates.subList(0, 3), applied);
+        assertEquals(OrderStatus.COMPLETED, first.getStatus());
+        assertEquals(OrderStatus.IN_PROGRESS, second.getStatus());
+        verify(orderRepository, times(1)).findByOrderIdIn(Set.of("1", "2", "3"));
+        verify(orderRepository, never()).findByOrderId(anyString());
+        verify(orderRepository, times(1)).saveAllAndFlush(anyCollection());
+    }
+
+    private Order statusUpdate(String orderId, OrderStatus status) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(status);
+        return order;
+    }
+
+    @Test
+    public void testGetOrdersPage() {
+        List<Order> orders = List.of(orderWithId(11L), orderWithId(12L), orderWithId(13L));
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(10L, Limit.of(3))).thenReturn(orders);
+
+        OrderPageDTO page = orderService.getOrdersPage(10L, 2);
+
+        assertEquals(2, page.getOrders().size());
+        assertEquals(11L, page.getOrders().get(0).getId());
+        assertEquals(12L, page.getNextCursor());
+    }
+
+    @Test
+    public void testGetOrdersPage_LastPageAndSizeCap() {
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(OrderService.MAX_PAGE_SIZE + 1)))
+                .thenReturn(List.of(orderWithId(1L)));
+
+        OrderPageDTO page = orderService.getOrdersPage(null, 100_000);
+
+        assertEquals(1, page.getOrders().size());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    public void testQueryOrdersContinuesAfterCursor() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 0);
+        OrderQuery.Cursor after = OrderQuery.Cursor.parse(time + "_10");
+        List<OrderDTO> orders = List.of(
+                new OrderDTO(11L, "ORD-11", "Margherita", null, OrderStatus.COMPLETED, time, time.plusMinutes(1)),
+                new OrderDTO(12L, "ORD-12", "Margherita", null, OrderStatus.COMPLETED, time, time.plusMinutes(2)),
+                new OrderDTO(13L, "ORD-13", "Margherita", null, OrderStatus.COMPLETED, time, time.plusMinutes(3)));
+        when(orderRepository.findPageByStatusAndUpdateTime(eq(OrderStatus.COMPLETED), eq("Margherita"), any(), any(),
+                eq(time), eq(10L), eq(Limit.of(3)))).thenReturn(orders);
+
+        OrderQueryPageDTO page = orderService.queryOrders(new OrderQuery(OrderStatus.COMPLETED, "Margherita",
+                OrderQuery.TimeField.UPDATE_TIME, null, null, after, 2));
+
+        assertEquals(2, page.getOrders().size());
+        assertEquals(time.plusMinutes(2) + "_12", page.getNextCursor());
+        assertEquals(new OrderQuery.Cursor(time.plusMinutes(2), 12L), OrderQuery.Cursor.parse(page.getNextCursor()));
+        verify(orderRepository, never()).findPageByStatusAndOrderTime(any(), any(), any(), any(), any(), anyLong(), any());
+    }
+
+    @Test
+    public void testQueryOrdersFirstPageStartsAtRangeStart() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 12, 0);
+        when(orderRepository.findPageByStatusAndOrderTime(eq(OrderStatus.PENDING), isNull(), eq(from), any(),
+                eq(from), eq(0L), eq(Limit.of(OrderService.DEFAULT_PAGE_SIZE + 1)))).thenReturn(List.of());
+
+        OrderQueryPageDTO page = orderService.queryOrders(new OrderQuery(OrderStatus.PENDING, null, null, from, null, null, null));
+
+        assertEquals(0, page.getOrders().size());
+        assertNull(page.getNextCursor());
+        assertThrows(IllegalArgumentException.class, () -> OrderQuery.Cursor.parse("not-a-cursor"));
+    }
+
+    private Order orderWithId(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderId("ORD-" + id);
+        return order;
     }
 
 }
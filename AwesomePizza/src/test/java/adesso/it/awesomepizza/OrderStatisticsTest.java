@@ -0,0 +1,144 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderStatsDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.service.OrderMetrics;
+import adesso.it.awesomepizza.service.OrderStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest
+public class OrderStatisticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    OrderIdGeneratorTest.MutableClock clock = new OrderIdGeneratorTest.MutableClock(NOW.toInstant(ZoneOffset.UTC).toEpochMilli());
+    OrderStatistics orderStatistics;
+
+    @BeforeEach
+    public void setUp() {
+        save("ORD-1", "Margherita", OrderStatus.PENDING, NOW.minusMinutes(5), null);
+        save("ORD-2", "Margherita", OrderStatus.PENDING, NOW.minusMinutes(4), null);
+        save("ORD-3", "Diavola", OrderStatus.IN_PROGRESS, NOW.minusMinutes(10), NOW.minusMinutes(2));
+        save("ORD-4", "Margherita", OrderStatus.COMPLETED, NOW.minusMinutes(30), NOW.minusMinutes(20));
+        save("ORD-5", "Diavola", OrderStatus.COMPLETED, NOW.minusHours(3), NOW.minusHours(2));
+        orderRepository.flush();
+        orderStatistics = new OrderStatistics(orderRepository, transactionManager, Duration.ofHours(1),
+                Duration.ofMinutes(1), 2, clock);
+        orderStatistics.rebuild();
+        // Roll back the test data, so status changes are applied at once instead of after a commit.
+        TestTransaction.end();
+    }
+
+    @Test
+    public void testRebuildCountsStoredOrders() {
+        OrderStatsDTO stats = orderStatistics.getStats();
+
+        assertEquals(5, stats.getTotal());
+        assertEquals(2, stats.getByStatus().get("PENDING"));
+        assertEquals(1, stats.getByStatus().get("IN_PROGRESS"));
+        assertEquals(2, stats.getByStatus().get("COMPLETED"));
+        assertEquals(2, stats.getByPizzaType().get("Margherita").get("PENDING"));
+        assertEquals(1, stats.getByPizzaType().get("Diavola").get("COMPLETED"));
+        assertEquals(4, stats.getPlaced());
+        assertEquals(1, stats.getCompleted());
+        assertEquals(4.0, stats.getPlacedPerHour());
+    }
+
+    @Test
+    public void testStatusChangesAreAppliedIncrementally() {
+        Order order = order("ORD-6", "Margherita", OrderStatus.PENDING, NOW, null);
+        orderStatistics.applyAfterCommit(List.of(OrderMetrics.StatusChange.placed(order)));
+        OrderMetrics.StatusChange started = OrderMetrics.StatusChange.of(order, OrderStatus.IN_PROGRESS, NOW);
+        order.setStatus(OrderStatus.IN_PROGRESS);
+        order.setUpdateTime(NOW);
+        OrderMetrics.StatusChange completed = OrderMetrics.StatusChange.of(order, OrderStatus.COMPLETED, NOW);
+        order.setStatus(OrderStatus.COMPLETED);
+        OrderMetrics.StatusChange redelivered = OrderMetrics.StatusChange.of(order, OrderStatus.COMPLETED, NOW);
+        orderStatistics.applyAfterCommit(List.of(started, completed, redelivered));
+
+        OrderStatsDTO stats = orderStatistics.getStats();
+        assertEquals(6, stats.getTotal());
+        assertEquals(2, stats.getByStatus().get("PENDING"));
+        assertEquals(3, stats.getByStatus().get("COMPLETED"));
+        assertEquals(2, stats.getByPizzaType().get("Margherita").get("COMPLETED"));
+        assertEquals(5, stats.getPlaced());
+        assertEquals(2, stats.getCompleted());
+    }
+
+    @Test
+    public void testOldBucketsLeaveTheWindow() {
+        clock.millis += Duration.ofMinutes(50).toMillis();
+
+        OrderStatsDTO stats = orderStatistics.getStats();
+        assertEquals(2, stats.getPlaced());
+        assertEquals(0, stats.getCompleted());
+        assertEquals(5, stats.getTotal());
+    }
+
+    @Test
+    public void testPizzaTypesBeyondLimitAreCountedAsOther() {
+        orderStatistics.applyAfterCommit(List.of(OrderMetrics.StatusChange.placed(
+                order("ORD-6", "Capricciosa", OrderStatus.PENDING, NOW, null))));
+
+        OrderStatsDTO stats = orderStatistics.getStats();
+        assertEquals(1, stats.getByPizzaType().get("other").get("PENDING"));
+        assertFalse(stats.getByPizzaType().containsKey("Capricciosa"));
+    }
+
+    @Test
+    public void testReconcileReplacesCountsWithStoredOrders() {
+        orderStatistics.applyAfterCommit(List.of(OrderMetrics.StatusChange.placed(
+                order("ORD-6", "Margherita", OrderStatus.PENDING, NOW, null))));
+        try {
+            // The test data of setUp was rolled back; only this order, placed by "another instance", is stored.
+            save("ORD-7", "Diavola", OrderStatus.COMPLETED, NOW.minusMinutes(3), NOW.minusMinutes(1));
+
+            orderStatistics.reconcile();
+
+            OrderStatsDTO stats = orderStatistics.getStats();
+            assertEquals(1, stats.getTotal());
+            assertEquals(1, stats.getByPizzaType().get("Diavola").get("COMPLETED"));
+            assertFalse(stats.getByPizzaType().containsKey("Margherita"));
+            assertEquals(1, stats.getCompleted());
+        } finally {
+            orderRepository.deleteAll();
+        }
+    }
+
+    private void save(String orderId, String pizzaType, OrderStatus status, LocalDateTime orderTime,
+                      LocalDateTime updateTime) {
+        orderRepository.save(order(orderId, pizzaType, status, orderTime, updateTime));
+    }
+
+    private Order order(String orderId, String pizzaType, OrderStatus status, LocalDateTime orderTime,
+                        LocalDateTime updateTime) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setPizzaType(pizzaType);
+        order.setStatus(status);
+        order.setOrderTime(orderTime);
+        order.setUpdateTime(updateTime);
+        return order;
+    }
+}
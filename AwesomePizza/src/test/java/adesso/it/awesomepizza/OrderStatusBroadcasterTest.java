@@ -0,0 +1,84 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.OrderNotFoundException;
+import adesso.it.awesomepizza.service.OrderStatusBroadcaster;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OrderStatusBroadcasterTest {
+
+    OrderStatusBroadcaster broadcaster = new OrderStatusBroadcaster(Duration.ofMinutes(1));
+
+    @Test
+    public void testSubscriptionEndsWhenAllOrdersAreCompleted() {
+        broadcaster.subscribe(List.of("ORD-1", "ORD-2"),
+                Map.of("ORD-1", orderDTO("ORD-1", "PENDING"), "ORD-2", orderDTO("ORD-2", "IN_PROGRESS"))::get);
+        assertEquals(1, broadcaster.getSubscriptionCount());
+
+        broadcaster.publish(order("ORD-1", "IN_PROGRESS"));
+        broadcaster.publish(order("ORD-1", "COMPLETED"));
+        assertEquals(1, broadcaster.getSubscriptionCount());
+
+        broadcaster.publish(order("ORD-2", "COMPLETED"));
+        assertEquals(0, broadcaster.getSubscriptionCount());
+    }
+
+    @Test
+    public void testSubscriptionToCompletedOrderEndsImmediately() {
+        broadcaster.subscribe(List.of("ORD-1"), orderId -> orderDTO(orderId, "COMPLETED"));
+
+        assertEquals(0, broadcaster.getSubscriptionCount());
+    }
+
+    @Test
+    public void testPublishWithoutSubscribersIsIgnored() {
+        broadcaster.subscribe(List.of("ORD-1"), orderId -> orderDTO(orderId, "PENDING"));
+
+        broadcaster.publish(order("ORD-2", "COMPLETED"));
+
+        assertEquals(1, broadcaster.getSubscriptionCount());
+    }
+
+    @Test
+    public void testStatusChangeWhileReadingSnapshotIsNotLost() {
+        broadcaster.subscribe(List.of("ORD-1"), orderId -> {
+            OrderDTO snapshot = orderDTO(orderId, "IN_PROGRESS");
+            broadcaster.publish(order(orderId, "COMPLETED"));
+            return snapshot;
+        });
+
+        assertEquals(0, broadcaster.getSubscriptionCount());
+    }
+
+    @Test
+    public void testFailedSnapshotUnregistersSubscription() {
+        assertThrows(OrderNotFoundException.class, () -> broadcaster.subscribe(List.of("ORD-1"), orderId -> {
+            throw new OrderNotFoundException("Order not found with id: " + orderId);
+        }));
+
+        assertEquals(0, broadcaster.getSubscriptionCount());
+    }
+
+    private OrderDTO orderDTO(String orderId, String status) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(orderId);
+        orderDTO.setStatus(status);
+        return orderDTO;
+    }
+
+    private Order order(String orderId, String status) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(OrderStatus.valueOf(status));
+        return order;
+    }
+}
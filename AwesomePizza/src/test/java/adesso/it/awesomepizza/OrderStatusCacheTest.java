@@ -0,0 +1,72 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.CacheStatsDTO;
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.service.OrderStatusCache;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class OrderStatusCacheTest {
+
+    @Test
+    public void testPutAndGetReturnCopies() {
+        OrderStatusCache cache = new OrderStatusCache(100, Duration.ofMinutes(1));
+        OrderDTO orderDTO = order("ORD-1", "PENDING");
+
+        cache.put(orderDTO);
+        orderDTO.setStatus("COMPLETED");
+        OrderDTO cached = cache.get("ORD-1");
+        cached.setStatus("IN_PROGRESS");
+
+        assertEquals("PENDING", cache.get("ORD-1").getStatus());
+    }
+
+    @Test
+    public void testPutAfterCommitWithoutTransactionUpdatesInPlace() {
+        OrderStatusCache cache = new OrderStatusCache(100, Duration.ofMinutes(1));
+        cache.put(order("ORD-1", "PENDING"));
+
+        cache.putAfterCommit(List.of(order("ORD-1", "IN_PROGRESS")));
+
+        assertEquals("IN_PROGRESS", cache.get("ORD-1").getStatus());
+    }
+
+    @Test
+    public void testPutIfAbsentKeepsNewerEntry() {
+        OrderStatusCache cache = new OrderStatusCache(100, Duration.ofMinutes(1));
+        cache.put(order("ORD-1", "COMPLETED"));
+
+        cache.putIfAbsent(order("ORD-1", "IN_PROGRESS"));
+        cache.putIfAbsent(order("ORD-2", "PENDING"));
+
+        assertEquals("COMPLETED", cache.get("ORD-1").getStatus());
+        assertEquals("PENDING", cache.get("ORD-2").getStatus());
+    }
+
+    @Test
+    public void testStatsRecordHitsAndMisses() {
+        OrderStatusCache cache = new OrderStatusCache(100, Duration.ofMinutes(1));
+        cache.put(order("ORD-1", "PENDING"));
+
+        cache.get("ORD-1");
+        cache.get("ORD-1");
+        assertNull(cache.get("ORD-2"));
+
+        CacheStatsDTO stats = cache.getStats();
+        assertEquals(1, stats.getSize());
+        assertEquals(2, stats.getHitCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    private OrderDTO order(String orderId, String status) {
+        OrderDTO orderDTO = new OrderDTO();
+        orderDTO.setOrderId(orderId);
+        orderDTO.setStatus(status);
+        return orderDTO;
+    }
+}
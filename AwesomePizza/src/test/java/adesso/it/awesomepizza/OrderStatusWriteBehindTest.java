@@ -0,0 +1,152 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.error.DatabaseException;
+import adesso.it.awesomepizza.service.OrderService;
+import adesso.it.awesomepizza.service.OrderStatusBroadcaster;
+import adesso.it.awesomepizza.service.OrderStatusBuffer;
+import adesso.it.awesomepizza.service.OrderStatusWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class OrderStatusWriteBehindTest {
+
+    private static final LocalDateTime UPDATE_TIME = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    OrderService orderService;
+
+    @Mock
+    OrderStatusBroadcaster orderStatusBroadcaster;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    List<String> failedOrderIds = new ArrayList<>();
+    BiConsumer<Order, Exception> onFailure = (order, ex) -> failedOrderIds.add(order.getOrderId());
+    OrderStatusBuffer orderStatusBuffer = new OrderStatusBuffer(meterRegistry);
+    OrderStatusWriteBehind writeBehind;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        writeBehind = new OrderStatusWriteBehind(orderService, orderStatusBuffer, orderStatusBroadcaster, true, 2, 100);
+    }
+
+    @Test
+    public void testNewestUpdateByUpdateTimeWins() {
+        Order inProgress = update("ORD-1", OrderStatus.IN_PROGRESS, UPDATE_TIME);
+        Order completed = update("ORD-1", OrderStatus.COMPLETED, UPDATE_TIME.plusNanos(1_000_000));
+
+        orderStatusBuffer.offer(completed);
+        orderStatusBuffer.offer(inProgress);
+
+        assertSame(completed, orderStatusBuffer.peek("ORD-1"));
+        assertEquals(1, orderStatusBuffer.size());
+        assertEquals(1, meterRegistry.get("order.status.updates.coalesced").counter().count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFlushWritesOneUpdatePerOrderInBatches() {
+        ArgumentCaptor<List<Order>> batchCaptor = ArgumentCaptor.forClass(List.class);
+        when(orderService.processPizzaOrderMessages(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        writeBehind.submit(List.of(
+                update("ORD-1", OrderStatus.IN_PROGRESS, UPDATE_TIME),
+                update("ORD-2", OrderStatus.IN_PROGRESS, UPDATE_TIME),
+                update("ORD-1", OrderStatus.COMPLETED, UPDATE_TIME.plusSeconds(1)),
+                update("ORD-3", OrderStatus.IN_PROGRESS, UPDATE_TIME)), onFailure);
+
+        assertEquals(3, writeBehind.flush());
+
+        verify(orderService, times(2)).processPizzaOrderMessages(batchCaptor.capture());
+        List<Order> written = batchCaptor.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(3, written.size());
+        assertEquals(OrderStatus.COMPLETED, written.stream()
+                .filter(order -> order.getOrderId().equals("ORD-1")).findFirst().orElseThrow().getStatus());
+        assertEquals(0, orderStatusBuffer.size());
+        verify(orderStatusBroadcaster, times(3)).publish(any(Order.class));
+    }
+
+    @Test
+    public void testUpdateReplacedDuringFlushStaysBuffered() {
+        Order completed = update("ORD-1", OrderStatus.COMPLETED, UPDATE_TIME.plusSeconds(1));
+        when(orderService.processPizzaOrderMessages(anyList())).thenAnswer(invocation -> {
+            orderStatusBuffer.offer(completed);
+            return invocation.getArgument(0);
+        });
+        writeBehind.submit(List.of(update("ORD-1", OrderStatus.IN_PROGRESS, UPDATE_TIME)), onFailure);
+
+        writeBehind.flush();
+
+        assertSame(completed, orderStatusBuffer.peek("ORD-1"));
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenOneByOne() {
+        when(orderService.processPizzaOrderMessages(anyList())).thenThrow(new DatabaseException("batch failed"));
+        doThrow(new DatabaseException("update failed"))
+                .when(orderService).processPizzaOrderMessage(argThat(order -> "ORD-1".equals(order.getOrderId())));
+        writeBehind.submit(List.of(
+                update("ORD-1", OrderStatus.COMPLETED, UPDATE_TIME),
+                update("ORD-2", OrderStatus.COMPLETED, UPDATE_TIME)), onFailure);
+
+        writeBehind.flush();
+
+        verify(orderService, times(2)).processPizzaOrderMessage(any(Order.class));
+        assertEquals(List.of("ORD-1"), failedOrderIds);
+        assertNull(orderStatusBuffer.peek("ORD-1"));
+        assertEquals(0, orderStatusBuffer.size());
+    }
+
+    @Test
+    public void testReplacedUpdateIsNotRetried() {
+        when(orderService.processPizzaOrderMessages(anyList())).thenThrow(new DatabaseException("batch failed"));
+        doThrow(new DatabaseException("update failed")).when(orderService).processPizzaOrderMessage(any(Order.class));
+        List<String> replacedFailures = new ArrayList<>();
+        writeBehind.submit(List.of(update("ORD-1", OrderStatus.IN_PROGRESS, UPDATE_TIME)),
+                (order, ex) -> replacedFailures.add(order.getOrderId()));
+        writeBehind.submit(List.of(update("ORD-1", OrderStatus.COMPLETED, UPDATE_TIME.plusSeconds(1))), onFailure);
+
+        writeBehind.flush();
+
+        assertEquals(List.of(), replacedFailures);
+        assertEquals(List.of("ORD-1"), failedOrderIds);
+    }
+
+    @Test
+    public void testSubmitFlushesWhenBufferIsFull() {
+        writeBehind = new OrderStatusWriteBehind(orderService, orderStatusBuffer, orderStatusBroadcaster, true, 500, 1);
+
+        writeBehind.submit(List.of(update("ORD-1", OrderStatus.IN_PROGRESS, UPDATE_TIME)), onFailure);
+        verify(orderService, never()).processPizzaOrderMessages(anyList());
+
+        writeBehind.submit(List.of(update("ORD-2", OrderStatus.IN_PROGRESS, UPDATE_TIME)), onFailure);
+        verify(orderService, times(1)).processPizzaOrderMessages(anyList());
+        assertEquals(0, orderStatusBuffer.size());
+    }
+
+    private Order update(String orderId, OrderStatus status, LocalDateTime updateTime) {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setStatus(status);
+        order.setUpdateTime(updateTime);
+        return order;
+    }
+}
@@ -0,0 +1,54 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.OutboxMessage;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+public class OutboxMessageRepositoryTest {
+
+    @Autowired
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Test
+    public void testClaimUnsentReturnsOldestUnsentMessages() {
+        OutboxMessage sent = save("ORD-1");
+        sent.setSentAt(LocalDateTime.now());
+        save("ORD-2");
+        save("ORD-3");
+        save("ORD-4");
+        outboxMessageRepository.flush();
+
+        List<OutboxMessage> claimed = outboxMessageRepository.claimUnsent(LocalDateTime.now(), PageRequest.of(0, 2));
+
+        assertEquals(List.of("ORD-2", "ORD-3"), claimed.stream().map(OutboxMessage::getOrderId).toList());
+    }
+
+    @Test
+    public void testClaimUnsentSkipsMessagesClaimedByAnotherRelay() {
+        LocalDateTime now = LocalDateTime.now();
+        save("ORD-1").setClaimedUntil(now.plusMinutes(1));
+        save("ORD-2").setClaimedUntil(now.minusSeconds(1));
+        save("ORD-3");
+        outboxMessageRepository.flush();
+
+        List<OutboxMessage> claimed = outboxMessageRepository.claimUnsent(now, PageRequest.of(0, 10));
+
+        assertEquals(List.of("ORD-2", "ORD-3"), claimed.stream().map(OutboxMessage::getOrderId).toList());
+    }
+
+    private OutboxMessage save(String orderId) {
+        return outboxMessageRepository.save(new OutboxMessage(orderId, WireFormat.JSON,
+                "{}".getBytes(StandardCharsets.UTF_8), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,95 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.OutboxMessage;
+import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.kafka.OutboxRelay;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OutboxRelayTest {
+
+    @Mock
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Mock
+    KafkaProducer kafkaProducer;
+
+    OutboxRelay outboxRelay;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        outboxRelay = new OutboxRelay(outboxMessageRepository, kafkaProducer, mock(PlatformTransactionManager.class), 10,
+                Duration.ofSeconds(1), Duration.ofMinutes(1), Duration.ofHours(1));
+    }
+
+    @Test
+    public void testRelayBatchPublishesInOrderAndMarksSent() {
+        List<OutboxMessage> batch = List.of(message(1L, "a"), message(2L, "b"));
+        when(outboxMessageRepository.claimUnsent(any(LocalDateTime.class), any(Pageable.class))).thenReturn(batch);
+        when(kafkaProducer.publish(anyString(), any(WireFormat.class), any(byte[].class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        int sent = outboxRelay.relayBatch();
+
+        assertEquals(2, sent);
+        assertTrue(batch.stream().allMatch(message -> message.getClaimedUntil() != null));
+        InOrder inOrder = inOrder(kafkaProducer);
+        inOrder.verify(kafkaProducer).publish(eq("ORD-1"), eq(WireFormat.JSON), eq(bytes("a")));
+        inOrder.verify(kafkaProducer).publish(eq("ORD-2"), eq(WireFormat.JSON), eq(bytes("b")));
+        verify(outboxMessageRepository, times(1)).markSent(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    }
+
+    @Test
+    public void testRelayBatchOnlyMarksPrefixBeforeFailure() {
+        when(outboxMessageRepository.claimUnsent(any(LocalDateTime.class), any(Pageable.class)))
+                .thenReturn(List.of(message(1L, "a"), message(2L, "b"), message(3L, "c")));
+        when(kafkaProducer.publish(eq("ORD-1"), eq(WireFormat.JSON), eq(bytes("a")))).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducer.publish(eq("ORD-2"), eq(WireFormat.JSON), eq(bytes("b")))).thenReturn(CompletableFuture.failedFuture(new TimeoutException("broker down")));
+        when(kafkaProducer.publish(eq("ORD-3"), eq(WireFormat.JSON), eq(bytes("c")))).thenReturn(CompletableFuture.completedFuture(null));
+
+        int sent = outboxRelay.relayBatch();
+
+        assertEquals(1, sent);
+        verify(outboxMessageRepository, times(1)).markSent(eq(List.of(1L)), any(LocalDateTime.class));
+        verify(outboxMessageRepository, times(1)).releaseClaim(List.of(2L, 3L));
+    }
+
+    @Test
+    public void testRelayBatchWithEmptyOutbox() {
+        when(outboxMessageRepository.claimUnsent(any(LocalDateTime.class), any(Pageable.class))).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.relayBatch());
+        verify(kafkaProducer, never()).publish(anyString(), any(), any());
+        verify(outboxMessageRepository, never()).markSent(any(), any());
+    }
+
+    private OutboxMessage message(Long id, String payload) {
+        OutboxMessage message = new OutboxMessage("ORD-" + id, WireFormat.JSON, bytes(payload), LocalDateTime.now());
+        message.setId(id);
+        return message;
+    }
+
+    private byte[] bytes(String payload) {
+        return payload.getBytes(StandardCharsets.UTF_8);
+    }
+}
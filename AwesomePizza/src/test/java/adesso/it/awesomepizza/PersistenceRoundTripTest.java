@@ -0,0 +1,199 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.entity.Order;
+import adesso.it.awesomepizza.entity.OrderStatus;
+import adesso.it.awesomepizza.entity.OutboxMessage;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import adesso.it.awesomepizza.repository.OrderRepository;
+import adesso.it.awesomepizza.repository.OutboxMessageRepository;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the JDBC round trips for storing 1,000 orders with their outbox messages, as {@code OrderService.placeOrders}
+ * does, under the persistence settings of the postgres profile. Runs against a file-based H2 database in PostgreSQL
+ * mode, so no database server is needed. Every statement execution and every executed batch is one round trip.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/h2/round-trips;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("postgres")
+public class PersistenceRoundTripTest {
+
+    private static final int ORDERS = 1_000;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    OutboxMessageRepository outboxMessageRepository;
+
+    @Autowired
+    EntityManager entityManager;
+
+    @Autowired
+    RoundTripCounter roundTripCounter;
+
+    @Test
+    public void testBatchingReducesRoundTripsPerThousandOrders() {
+        // Without JDBC batching every row is its own round trip.
+        entityManager.unwrap(Session.class).setJdbcBatchSize(1);
+        RoundTrips unbatched = store("unbatched");
+
+        entityManager.unwrap(Session.class).setJdbcBatchSize(null);
+        RoundTrips batched = store("batched");
+
+        System.out.printf("%nJDBC round trips per %d orders with outbox messages%n", ORDERS);
+        System.out.printf("%-10s %10s %10s%n", "", "inserts", "sequence");
+        System.out.println(unbatched.format());
+        System.out.println(batched.format());
+
+        // 50 IDs per sequence call, for orders and outbox messages alike.
+        assertEquals(2 * ORDERS / 50, batched.sequenceCalls());
+        assertEquals(2 * ORDERS, unbatched.inserts());
+        // 50 rows per batch.
+        assertEquals(2 * ORDERS / 50, batched.inserts());
+        assertTrue(batched.total() * 10 < unbatched.total());
+    }
+
+    private RoundTrips store(String name) {
+        List<Order> orders = new ArrayList<>(ORDERS);
+        List<OutboxMessage> outboxMessages = new ArrayList<>(ORDERS);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = new Order();
+            order.setOrderId(name + "-" + i);
+            order.setPizzaType("Margherita");
+            order.setStatus(OrderStatus.PENDING);
+            order.setOrderTime(now);
+            orders.add(order);
+            outboxMessages.add(new OutboxMessage(order.getOrderId(), WireFormat.BINARY, new byte[16], now));
+        }
+        roundTripCounter.reset();
+        orderRepository.saveAll(orders);
+        outboxMessageRepository.saveAll(outboxMessages);
+        entityManager.flush();
+        RoundTrips roundTrips = new RoundTrips(name, roundTripCounter.inserts.get(), roundTripCounter.sequenceCalls.get());
+        entityManager.clear();
+        return roundTrips;
+    }
+
+    record RoundTrips(String name, int inserts, int sequenceCalls) {
+        int total() {
+            return inserts + sequenceCalls;
+        }
+
+        String format() {
+            return String.format("%-10s %10d %10d", name, inserts, sequenceCalls);
+        }
+    }
+
+    @TestConfiguration
+    static class RoundTripCounterConfig {
+
+        @Bean
+        static RoundTripCounter roundTripCounter() {
+            return new RoundTripCounter();
+        }
+    }
+
+    /**
+     * Wraps the data source so executed statements and batches are counted by their SQL.
+     */
+    static class RoundTripCounter implements BeanPostProcessor {
+
+        private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+                "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+        final AtomicInteger inserts = new AtomicInteger();
+        final AtomicInteger sequenceCalls = new AtomicInteger();
+
+        void reset() {
+            inserts.set(0);
+            sequenceCalls.set(0);
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+                return proxy(DataSource.class, dataSource, (method, result, args) ->
+                        result instanceof Connection connection ? proxyConnection(connection) : result);
+            }
+            return bean;
+        }
+
+        private Connection proxyConnection(Connection connection) {
+            return proxy(Connection.class, connection, (method, result, args) -> {
+                if (result instanceof Statement statement && method.getName().startsWith("prepare")) {
+                    String sql = ((String) args[0]).toLowerCase();
+                    return proxy(interfaceOf(statement), statement, (statementMethod, statementResult, statementArgs) -> {
+                        if (EXECUTE_METHODS.contains(statementMethod.getName())) {
+                            count(sql);
+                        }
+                        return statementResult;
+                    });
+                }
+                return result;
+            });
+        }
+
+        private void count(String sql) {
+            if (sql.startsWith("insert")) {
+                inserts.incrementAndGet();
+            } else if (sql.contains("_seq")) {
+                sequenceCalls.incrementAndGet();
+            }
+        }
+
+        private static Class<? extends Statement> interfaceOf(Statement statement) {
+            return statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class
+                    : Statement.class;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<? extends T> type, T target, Decorator decorator) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                try {
+                    return decorator.decorate(method, method.invoke(target, args), args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            });
+        }
+
+        interface Decorator {
+            Object decorate(Method method, Object result, Object[] args);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.kafka.RetryTopicRouter;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class RetryTopicRouterTest {
+
+    @Mock
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    List<ProducerRecord<String, byte[]>> sent = new ArrayList<>();
+    RetryTopicRouter retryTopicRouter;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any())).thenAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(new SendResult<>(invocation.getArgument(0), null));
+        });
+        retryTopicRouter = new RetryTopicRouter(kafkaTemplate, List.of(Duration.ofSeconds(1), Duration.ofSeconds(10)),
+                Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @Test
+    public void testRetryTopicsFollowBackoffTiers() {
+        assertArrayEquals(new String[]{"preparation-topic-retry-0", "preparation-topic-retry-1"},
+                retryTopicRouter.retryTopics("preparation-topic"));
+    }
+
+    @Test
+    public void testRetryMovesMessageThroughTiersToDeadLetterTopic() {
+        ConsumerRecord<String, byte[]> record = record("preparation-topic");
+        record.headers().add(WireFormat.HEADER, WireFormat.BINARY.headerValue());
+
+        retryTopicRouter.retry(record, new IllegalStateException("first"));
+        ProducerRecord<String, byte[]> first = sent.get(0);
+        assertEquals("preparation-topic-retry-0", first.topic());
+        assertEquals("1", first.key());
+        assertEquals(1, intHeader(first, RetryTopicRouter.ATTEMPT_HEADER));
+        assertNotNull(first.headers().lastHeader(RetryTopicRouter.DUE_AT_HEADER));
+        assertNotNull(first.headers().lastHeader(WireFormat.HEADER));
+
+        retryTopicRouter.retry(forwarded(first, 0), new IllegalStateException("second"));
+        ProducerRecord<String, byte[]> second = sent.get(1);
+        assertEquals("preparation-topic-retry-1", second.topic());
+        assertEquals(2, intHeader(second, RetryTopicRouter.ATTEMPT_HEADER));
+
+        retryTopicRouter.retry(forwarded(second, 1), new IllegalStateException("third"));
+        ProducerRecord<String, byte[]> third = sent.get(2);
+        assertEquals("preparation-topic-dlt", third.topic());
+        assertNull(third.headers().lastHeader(RetryTopicRouter.DUE_AT_HEADER));
+        assertEquals("java.lang.IllegalStateException: third",
+                RetryTopicRouter.exceptionMessage(forwarded(third, 2)));
+        assertEquals("preparation-topic", RetryTopicRouter.originalTopic(forwarded(third, 2)));
+        assertEquals(2, RetryTopicRouter.attempts(forwarded(third, 2)));
+        assertEquals(1, meterRegistry.get("kafka.listener.rerouted").tag("to", "dlt").counter().count());
+    }
+
+    @Test
+    public void testRemainingDelayIsZeroWithoutDueHeader() {
+        assertEquals(0, RetryTopicRouter.remainingDelay(record("preparation-topic")));
+    }
+
+    @Test
+    public void testRetryFailsWhenMessageCannotBeForwarded() {
+        when(kafkaTemplate.send(ArgumentMatchers.<ProducerRecord<String, byte[]>>any()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        assertThrows(KafkaException.class,
+                () -> retryTopicRouter.retry(record("preparation-topic"), new IllegalStateException("failed")));
+    }
+
+    private ConsumerRecord<String, byte[]> record(String topic) {
+        return new ConsumerRecord<>(topic, 0, 0, "1", "payload".getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * The record as the listener of the topic it was forwarded to receives it.
+     */
+    private ConsumerRecord<String, byte[]> forwarded(ProducerRecord<String, byte[]> producerRecord, long offset) {
+        ConsumerRecord<String, byte[]> record = new ConsumerRecord<>(producerRecord.topic(), 0, offset,
+                producerRecord.key(), producerRecord.value());
+        for (Header header : producerRecord.headers()) {
+            record.headers().add(header);
+        }
+        return record;
+    }
+
+    private int intHeader(ProducerRecord<String, byte[]> record, String key) {
+        return ByteBuffer.wrap(record.headers().lastHeader(key).value()).getInt();
+    }
+}
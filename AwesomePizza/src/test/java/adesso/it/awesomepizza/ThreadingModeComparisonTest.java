@@ -0,0 +1,139 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.kafka.KafkaProducer;
+import adesso.it.awesomepizza.kafka.OrderMessageCodec;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares throughput and latency of POST /api/orders/place-order with platform and virtual threads.
+ * Kafka sends are replaced by a fixed delay, simulating a slow broker. Since placeOrder writes to the outbox,
+ * the delay only slows down {@code OutboxRelay}; request threads block on H2/JPA only.
+ * <p>
+ * Run with: {@code mvn test -Dtest=ThreadingModeComparisonTest -Dthreading.comparison=true} on a Java 21 runtime.
+ * Tuning: {@code -Dthreading.comparison.requests}, {@code .concurrency}, {@code .brokerDelayMs} and {@code .poolSize}.
+ */
+@EnabledIfSystemProperty(named = "threading.comparison", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+public class ThreadingModeComparisonTest {
+
+    private static final int REQUESTS = Integer.getInteger("threading.comparison.requests", 10_000);
+    private static final int CONCURRENCY = Integer.getInteger("threading.comparison.concurrency", 1_000);
+    private static final long BROKER_DELAY_MS = Long.getLong("threading.comparison.brokerDelayMs", 50);
+    private static final int POOL_SIZE = Integer.getInteger("threading.comparison.poolSize", 10);
+
+    @Test
+    public void comparePlatformAndVirtualThreads() throws Exception {
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%n%-10s %12s %10s %10s %10s%n", "mode", "req/s", "p50 ms", "p99 ms", "max ms");
+        System.out.println(platform.format("platform"));
+        System.out.println(virtual.format("virtual"));
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AwesomePizzaApplication.class, SlowBroker.class)
+                .properties("server.port=0",
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "spring.datasource.url=jdbc:h2:mem:threading-" + mode,
+                        "spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                        "spring.kafka.admin.auto-create=false",
+                        "spring.kafka.listener.auto-startup=false",
+                        "order.admission.enabled=false",
+                        "logging.level.adesso.it.awesomepizza=WARN")
+                .run()) {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/orders/place-order");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+            // Warm up the JIT, connection pool and Hibernate before measuring.
+            load(client, uri, Math.min(REQUESTS, 2_000));
+            return load(client, uri, REQUESTS);
+        }
+    }
+
+    private Result load(HttpClient client, URI uri, int requests) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"pizzaType\":\"Margherita\",\"note\":\"load\"}"))
+                .build();
+        long[] latencies = new long[requests];
+        AtomicInteger created = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(CONCURRENCY);
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sentAt = System.nanoTime();
+            futures[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        latencies[index] = System.nanoTime() - sentAt;
+                        if (error == null && response.statusCode() == 201) {
+                            created.incrementAndGet();
+                        }
+                        inFlight.release();
+                    });
+        }
+        CompletableFuture.allOf(futures).join();
+        long elapsed = System.nanoTime() - start;
+
+        assertEquals(requests, created.get());
+        Arrays.sort(latencies);
+        return new Result(requests * 1_000_000_000.0 / elapsed,
+                latencies[requests / 2] / 1_000_000.0,
+                latencies[(int) Math.ceil(requests * 0.99) - 1] / 1_000_000.0,
+                latencies[requests - 1] / 1_000_000.0);
+    }
+
+    record Result(double throughput, double p50, double p99, double max) {
+        String format(String mode) {
+            return String.format("%-10s %12.0f %10.1f %10.1f %10.1f", mode, throughput, p50, p99, max);
+        }
+    }
+
+    static class SlowBroker {
+
+        @Bean
+        @Primary
+        KafkaProducer slowKafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, OrderMessageCodec orderMessageCodec,
+                                        MeterRegistry meterRegistry) {
+            return new KafkaProducer(kafkaTemplate, orderMessageCodec, meterRegistry) {
+                @Override
+                public CompletableFuture<SendResult<String, byte[]>> publish(String orderId, WireFormat format, byte[] payload) {
+                    try {
+                        Thread.sleep(BROKER_DELAY_MS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CompletableFuture.completedFuture(null);
+                }
+            };
+        }
+    }
+}
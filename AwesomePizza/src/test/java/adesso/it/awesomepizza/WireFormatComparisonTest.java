@@ -0,0 +1,83 @@
+package adesso.it.awesomepizza;
+
+import adesso.it.awesomepizza.dto.OrderDTO;
+import adesso.it.awesomepizza.kafka.JsonOrderCodec;
+import adesso.it.awesomepizza.kafka.OrderMessageCodec;
+import adesso.it.awesomepizza.kafka.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Compares message size, encode/decode time and allocated bytes per message of the JSON and binary wire formats
+ * on a typical order message.
+ * <p>
+ * Run with: {@code mvn test -Dtest=WireFormatComparisonTest -Dwire-format.comparison=true}.
+ * Tuning: {@code -Dwire-format.comparison.iterations}.
+ */
+@EnabledIfSystemProperty(named = "wire-format.comparison", matches = "true")
+public class WireFormatComparisonTest {
+
+    private static final int ITERATIONS = Integer.getInteger("wire-format.comparison.iterations", 1_000_000);
+
+    private final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private long blackhole;
+
+    @Test
+    public void compareJsonAndBinary() throws IOException {
+        OrderDTO orderDTO = OrderMessageCodecTest.sampleOrder();
+        orderDTO.setNote("Extra basil");
+        orderDTO.setStatus("IN_PROGRESS");
+        orderDTO.setUpdateTime(orderDTO.getOrderTime().plusMinutes(5));
+
+        Result json = run(new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.JSON), orderDTO);
+        Result binary = run(new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY), orderDTO);
+
+        System.out.printf("%n%-8s %8s %14s %14s %14s %14s%n", "format", "bytes", "encode ns/op", "decode ns/op",
+                "encode B/op", "decode B/op");
+        System.out.println(json.format("json"));
+        System.out.println(binary.format("binary"));
+        // Keeps the measured results alive, so the JIT cannot drop the loops.
+        assertNotEquals(0, blackhole);
+    }
+
+    private Result run(OrderMessageCodec codec, OrderDTO orderDTO) throws IOException {
+        WireFormat format = codec.getWireFormat();
+        byte[] message = codec.encode(orderDTO);
+        // Warm up the JIT before measuring.
+        for (int i = 0; i < ITERATIONS; i++) {
+            blackhole += codec.encode(orderDTO).length;
+            blackhole += codec.decode(message, format).getId();
+        }
+
+        long thread = Thread.currentThread().getId();
+        long allocated = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            blackhole += codec.encode(orderDTO).length;
+        }
+        double encode = (System.nanoTime() - start) / (double) ITERATIONS;
+        double encodeBytes = (threads.getThreadAllocatedBytes(thread) - allocated) / (double) ITERATIONS;
+
+        allocated = threads.getThreadAllocatedBytes(thread);
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            blackhole += codec.decode(message, format).getId();
+        }
+        double decode = (System.nanoTime() - start) / (double) ITERATIONS;
+        double decodeBytes = (threads.getThreadAllocatedBytes(thread) - allocated) / (double) ITERATIONS;
+        return new Result(message.length, encode, decode, encodeBytes, decodeBytes);
+    }
+
+    record Result(int size, double encodeNanos, double decodeNanos, double encodeBytes, double decodeBytes) {
+        String format(String format) {
+            return String.format("%-8s %8d %14.0f %14.0f %14.0f %14.0f", format, size, encodeNanos, decodeNanos,
+                    encodeBytes, decodeBytes);
+        }
+    }
+}
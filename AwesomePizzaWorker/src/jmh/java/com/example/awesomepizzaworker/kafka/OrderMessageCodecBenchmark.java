@@ -0,0 +1,53 @@
+package com.example.awesomepizzaworker.kafka;
+
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of the order-topic messages as done by {@link KafkaConsumer} and encoding of the preparation-topic
+ * messages as done by {@link KafkaProducer}, in both wire formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderMessageCodecBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private WireFormat format;
+
+    private OrderMessageCodec codec;
+    private PizzaDTO pizzaDTO;
+    private byte[] message;
+
+    @Setup
+    public void setUp() throws IOException {
+        codec = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), format);
+        pizzaDTO = new PizzaDTO();
+        pizzaDTO.setId(42L);
+        pizzaDTO.setOrderId("ORD-01HX3QJ5Z8K2M");
+        pizzaDTO.setPizzaType("Margherita");
+        pizzaDTO.setNote("Extra basil");
+        pizzaDTO.setStatus("IN_PROGRESS");
+        pizzaDTO.setOrderTime(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000));
+        pizzaDTO.setUpdateTime(pizzaDTO.getOrderTime().plusMinutes(5));
+        message = codec.encode(pizzaDTO);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return codec.encode(pizzaDTO);
+    }
+
+    @Benchmark
+    public PizzaDTO decode() throws IOException {
+        return codec.decode(message, format);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.awesomepizzaworker.service;
+
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.example.awesomepizzaworker.entity.OrderStatus;
+import com.example.awesomepizzaworker.entity.Pizza;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping between {@link PizzaDTO} and the {@link Pizza} entity in {@link PizzaService}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PizzaServiceBenchmark {
+
+    private PizzaService pizzaService;
+    private PizzaDTO pizzaDTO;
+    private Pizza pizza;
+
+    @Setup
+    public void setUp() {
+        pizzaService = new PizzaService(null, null, null, null);
+        pizzaDTO = new PizzaDTO();
+        pizzaDTO.setId(42L);
+        pizzaDTO.setOrderId("ORD-01HX3QJ5Z8K2M");
+        pizzaDTO.setPizzaType("Margherita");
+        pizzaDTO.setNote("Extra basil");
+        pizzaDTO.setStatus(OrderStatus.PENDING.name());
+        pizzaDTO.setOrderTime(LocalDateTime.now());
+        pizza = pizzaService.createPizzaFromDTO(pizzaDTO);
+        pizza.setId(7L);
+    }
+
+    @Benchmark
+    public Pizza createPizzaFromDTO() {
+        return pizzaService.createPizzaFromDTO(pizzaDTO);
+    }
+
+    @Benchmark
+    public PizzaDTO mapPizzaEntityToDTO() {
+        return pizzaService.mapPizzaEntityToDTO(pizza);
+    }
+}
@@ -1,17 +1,108 @@
 package com.example.awesomepizzaworker.config;
 
+import com.example.awesomepizzaworker.kafka.KeyOrderedDispatcher;
+import com.example.awesomepizzaworker.kafka.ProducerProfile;
+import com.example.awesomepizzaworker.kafka.RetryTopicRouter;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer;
+import org.springframework.boot.autoconfigure.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class KafkaConfig {
+
+    @Value("${kafka.topic.partitions:3}")
+    private int partitions;
+
+    @Value("${kafka.listener.lanes:4}")
+    private int lanes;
+
     @Bean
     public NewTopic orderActivitiesTopic() {
         return TopicBuilder.name("preparation-topic")
-                .partitions(3)
+                .partitions(partitions)
+                .replicas(1)
+                .build();
+    }
+
+    /**
+     * Dispatcher running the key-ordered lanes of the listener containers, with a lane thread pool
+     * sized for one container thread per partition. Uses virtual threads when they are enabled.
+     */
+    @Bean
+    public KeyOrderedDispatcher keyOrderedDispatcher(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("listener-lane-");
+            executor.setVirtualThreads(true);
+            return new KeyOrderedDispatcher(executor, lanes);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(partitions * lanes, new CustomizableThreadFactory("listener-lane-"));
+        return new KeyOrderedDispatcher(executor, lanes);
+    }
+
+    /**
+     * Applies the producer profile selected by {@code kafka.producer.profile}. Settings given explicitly in
+     * {@code spring.kafka.producer.*} take precedence over the profile.
+     */
+    @Bean
+    public DefaultKafkaProducerFactoryCustomizer producerProfileCustomizer(
+            @Value("${kafka.producer.profile:latency}") ProducerProfile profile) {
+        return producerFactory -> {
+            Map<String, Object> settings = new HashMap<>(profile.getSettings());
+            settings.keySet().removeAll(producerFactory.getConfigurationProperties().keySet());
+            producerFactory.updateConfigs(settings);
+        };
+    }
+
+    /**
+     * Retry topics of 'order-topic', one per back-off tier of {@code kafka.retry.backoff}, and its dead-letter topic.
+     */
+    @Bean
+    public KafkaAdmin.NewTopics retryTopics(RetryTopicRouter retryTopicRouter) {
+        List<NewTopic> topics = new ArrayList<>();
+        for (String retryTopic : retryTopicRouter.retryTopics("order-topic")) {
+            topics.add(topic(retryTopic));
+        }
+        topics.add(topic(RetryTopicRouter.deadLetterTopic("order-topic")));
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+
+    private NewTopic topic(String name) {
+        return TopicBuilder.name(name)
+                .partitions(partitions)
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Container factory of the retry topic listeners: one record at a time with manual acknowledgment, so a
+     * message that is not due yet can be handed back.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> retryListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer, ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(false);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.awesomepizzaworker.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.SimpleAsyncTaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+@Configuration
+@EnableConfigurationProperties(KitchenProperties.class)
+public class KitchenConfig {
+
+    /**
+     * Scheduler running the kitchen timers. Follows spring.threads.virtual.enabled,
+     * so every timer fires on its own virtual thread when virtual threads are active.
+     */
+    @Bean
+    public TaskScheduler kitchenScheduler(KitchenProperties kitchenProperties, Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskScheduler scheduler = new SimpleAsyncTaskScheduler();
+            scheduler.setVirtualThreads(true);
+            scheduler.setThreadNamePrefix("kitchen-");
+            return scheduler;
+        }
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(kitchenProperties.getTimerThreads());
+        scheduler.setThreadNamePrefix("kitchen-");
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.awesomepizzaworker.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "kitchen")
+public class KitchenProperties {
+
+    private Duration defaultPreparationTime = Duration.ofSeconds(6);
+    private Map<String, Duration> preparationTimes = new HashMap<>();
+    private int timerThreads = 2;
+    private int ovens = 8;
+    private int queueCapacity = 100;
+    private Duration resumeAfter = Duration.ofMinutes(10);
+
+    public Duration getDefaultPreparationTime() {
+        return defaultPreparationTime;
+    }
+
+    public void setDefaultPreparationTime(Duration defaultPreparationTime) {
+        this.defaultPreparationTime = defaultPreparationTime;
+    }
+
+    public Map<String, Duration> getPreparationTimes() {
+        return preparationTimes;
+    }
+
+    public void setPreparationTimes(Map<String, Duration> preparationTimes) {
+        this.preparationTimes = preparationTimes;
+    }
+
+    public int getTimerThreads() {
+        return timerThreads;
+    }
+
+    public void setTimerThreads(int timerThreads) {
+        this.timerThreads = timerThreads;
+    }
+
+    public int getOvens() {
+        return ovens;
+    }
+
+    public void setOvens(int ovens) {
+        this.ovens = ovens;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getResumeAfter() {
+        return resumeAfter;
+    }
+
+    public void setResumeAfter(Duration resumeAfter) {
+        this.resumeAfter = resumeAfter;
+    }
+
+    /**
+     * Resolves the preparation time of a pizza type, ignoring case.
+     *
+     * @param pizzaType The pizza type of the order.
+     * @return The configured preparation time, or the default one if the type is not configured.
+     */
+    public Duration preparationTimeFor(String pizzaType) {
+        if (pizzaType == null) {
+            return defaultPreparationTime;
+        }
+        String key = pizzaType.trim().toLowerCase(Locale.ROOT);
+        for (Map.Entry<String, Duration> entry : preparationTimes.entrySet()) {
+            if (entry.getKey().trim().toLowerCase(Locale.ROOT).equals(key)) {
+                return entry.getValue();
+            }
+        }
+        return defaultPreparationTime;
+    }
+}
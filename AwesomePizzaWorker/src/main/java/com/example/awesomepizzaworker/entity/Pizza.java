@@ -5,18 +5,24 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "pizza_preparation")
+@Table(name = "pizza_preparation", indexes = {
+        @Index(name = "idx_pizza_preparation_status_received_time", columnList = "status, receivedTime, id"),
+        @Index(name = "idx_pizza_preparation_status_update_time", columnList = "status, updateTime, id")
+})
 public class Pizza {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pizza_preparation_seq")
+    @SequenceGenerator(name = "pizza_preparation_seq", sequenceName = "pizza_preparation_seq", allocationSize = 50)
     private Long id;
     @Column(unique = true, nullable = false)
     private String orderId;
     @Column(nullable = false)
     private String pizzaType;
     private String note;
-    private String status;
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private OrderStatus status;
     private LocalDateTime receivedTime;
     private LocalDateTime updateTime;
 
@@ -52,11 +58,11 @@ public class Pizza {
         this.note = note;
     }
 
-    public String getStatus() {
+    public OrderStatus getStatus() {
         return status;
     }
 
-    public void setStatus(String status) {
+    public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
@@ -83,7 +89,7 @@ public class Pizza {
                 ", orderId=" + orderId +
                 ", pizzaType='" + pizzaType + '\'' +
                 ", note='" + note + '\'' +
-                ", status='" + status + '\'' +
+                ", status=" + status +
                 ", receivedTime=" + receivedTime +
                 ", updateTime=" + updateTime +
                 '}';
@@ -0,0 +1,58 @@
+package com.example.awesomepizzaworker.kafka;
+
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * JSON encoding of the order messages exchanged with AwesomePizza.
+ * <p>
+ * The reader and writer are built once, from a copy of the application's {@link ObjectMapper}, so the shared
+ * mapper is never modified. Both are immutable and thread-safe, and they cache their serializers for the
+ * message types, so concurrent listener threads can use them without locking.
+ * Timestamps are written as ISO-8601 strings and unknown properties are ignored when reading.
+ */
+@Component
+public class JsonOrderCodec {
+
+    private final ObjectWriter pizzaDtoWriter;
+    private final ObjectReader pizzaDtoReader;
+
+    public JsonOrderCodec(ObjectMapper objectMapper) {
+        ObjectMapper mapper = objectMapper.copy().registerModule(new JavaTimeModule());
+        this.pizzaDtoWriter = mapper.writerFor(PizzaDTO.class)
+                .without(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.pizzaDtoReader = mapper.readerFor(PizzaDTO.class)
+                .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    /**
+     * Encodes an order message.
+     *
+     * @param pizzaDTO The pizza to be encoded.
+     * @return The UTF-8 JSON message.
+     * @throws JsonProcessingException if the pizza cannot be converted to JSON.
+     */
+    public byte[] encode(PizzaDTO pizzaDTO) throws JsonProcessingException {
+        return pizzaDtoWriter.writeValueAsBytes(pizzaDTO);
+    }
+
+    /**
+     * Decodes an order message.
+     *
+     * @param message The UTF-8 JSON message.
+     * @return The decoded pizza.
+     * @throws IOException if the message is not a valid order.
+     */
+    public PizzaDTO decode(byte[] message) throws IOException {
+        return pizzaDtoReader.readValue(message);
+    }
+}
@@ -2,28 +2,126 @@ package com.example.awesomepizzaworker.kafka;
 
 import com.example.awesomepizzaworker.dto.PizzaDTO;
 import com.example.awesomepizzaworker.service.PizzaService;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
 
 @Component
 public class KafkaConsumer {
 
+    private static final Logger logger = LoggerFactory.getLogger(KafkaConsumer.class);
+    static final String LISTENER_ID = "order-listener";
+    static final String RETRY_LISTENER_ID = "order-retry-listener";
+
     private final PizzaService pizzaService;
-    private final ObjectMapper objectMapper;
+    private final OrderMessageCodec orderMessageCodec;
+    private final KeyOrderedDispatcher keyOrderedDispatcher;
+    private final RetryTopicRouter retryTopicRouter;
+    private final RetryTopicBackoff retryTopicBackoff;
 
     @Autowired
-    public KafkaConsumer(PizzaService pizzaService, ObjectMapper objectMapper) {
+    public KafkaConsumer(PizzaService pizzaService, OrderMessageCodec orderMessageCodec, KeyOrderedDispatcher keyOrderedDispatcher,
+                         RetryTopicRouter retryTopicRouter, RetryTopicBackoff retryTopicBackoff) {
         this.pizzaService = pizzaService;
-        this.objectMapper = objectMapper;
+        this.orderMessageCodec = orderMessageCodec;
+        this.keyOrderedDispatcher = keyOrderedDispatcher;
+        this.retryTopicRouter = retryTopicRouter;
+        this.retryTopicBackoff = retryTopicBackoff;
+    }
+
+    /**
+     * Listens to the 'order-topic' Kafka topic with one consumer per partition. Each poll is processed in
+     * key-ordered lanes: different orders are handled in parallel, the messages of one order in sequence.
+     * Messages are decoded in the wire format named by their content type header; unreadable ones go straight to
+     * the dead-letter topic. Each lane stores its new orders in one transaction with a batched insert. If that fails,
+     * the lane's messages are processed one by one, so a single bad message does not roll back the others. Messages
+     * that still fail are moved to the retry topics by {@link RetryTopicRouter}, so they do not hold up the partition.
+     *
+     * @param records The incoming records.
+     */
+    @KafkaListener(id = LISTENER_ID, topics = "order-topic", groupId = "awesome-pizza-group", batch = "true",
+            concurrency = "${kafka.topic.partitions:3}")
+    public void receiveMessages(List<ConsumerRecord<String, byte[]>> records) {
+        List<PizzaDTO> pizzaDTOs = new ArrayList<>(records.size());
+        Map<PizzaDTO, ConsumerRecord<String, byte[]>> recordsByPizza = new IdentityHashMap<>(records.size());
+        for (ConsumerRecord<String, byte[]> record : records) {
+            try {
+                PizzaDTO pizzaDTO = orderMessageCodec.decode(record.value(), WireFormat.fromHeaders(record.headers()));
+                pizzaDTOs.add(pizzaDTO);
+                recordsByPizza.put(pizzaDTO, record);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.error("Unreadable order message with key {} at {}-{}@{}",
+                        record.key(), record.topic(), record.partition(), record.offset(), e);
+                retryTopicRouter.deadLetter(record, e);
+            }
+        }
+        if (!pizzaDTOs.isEmpty()) {
+            keyOrderedDispatcher.dispatch(pizzaDTOs, PizzaDTO::getOrderId,
+                    lane -> processOrders(lane, (pizzaDTO, e) -> retryTopicRouter.retry(recordsByPizza.get(pizzaDTO), e)));
+        }
+    }
+
+    /**
+     * Listens to the retry topics of 'order-topic', one record at a time with manual acknowledgment.
+     * A message that is not due yet pauses its partition until it is, without holding up the other partitions.
+     * A message failing again moves on to the next retry tier, or to the dead-letter topic after the last one.
+     *
+     * @param record         The incoming record.
+     * @param acknowledgment The acknowledgment of the record.
+     */
+    @KafkaListener(id = RETRY_LISTENER_ID, topics = "#{@retryTopicRouter.retryTopics('order-topic')}",
+            groupId = "awesome-pizza-group", containerFactory = "retryListenerContainerFactory",
+            concurrency = "${kafka.topic.partitions:3}")
+    public void receiveRetryMessage(ConsumerRecord<String, byte[]> record, Acknowledgment acknowledgment) {
+        long delay = RetryTopicRouter.remainingDelay(record);
+        if (delay > 0) {
+            retryTopicBackoff.pause(RETRY_LISTENER_ID, new TopicPartition(record.topic(), record.partition()), delay);
+            acknowledgment.nack(Duration.ZERO);
+            return;
+        }
+        PizzaDTO pizzaDTO;
+        try {
+            pizzaDTO = orderMessageCodec.decode(record.value(), WireFormat.fromHeaders(record.headers()));
+        } catch (IOException | IllegalArgumentException e) {
+            retryTopicRouter.deadLetter(record, e);
+            acknowledgment.acknowledge();
+            return;
+        }
+        try {
+            pizzaService.processPendingPizzaOrder(pizzaDTO);
+        } catch (Exception e) {
+            retryTopicRouter.retry(record, e);
+        }
+        acknowledgment.acknowledge();
     }
 
-    @KafkaListener(topics = "order-topic", groupId = "awesome-pizza-group")
-    public void receiveMessage(String message) throws JsonProcessingException {
-        PizzaDTO pizzaDTO = objectMapper.readValue(message, PizzaDTO.class);
-        pizzaService.processPendingPizzaOrder(pizzaDTO);
+    private void processOrders(List<PizzaDTO> pizzaDTOs, BiConsumer<PizzaDTO, Exception> onFailure) {
+        try {
+            pizzaService.processPendingPizzaOrders(pizzaDTOs);
+        } catch (Exception e) {
+            logger.warn("Batch of {} order messages failed, processing them one by one.", pizzaDTOs.size(), e);
+            for (PizzaDTO pizzaDTO : pizzaDTOs) {
+                try {
+                    pizzaService.processPendingPizzaOrder(pizzaDTO);
+                } catch (Exception recordEx) {
+                    logger.error("Order message for order with id: {} failed", pizzaDTO.getOrderId(), recordEx);
+                    onFailure.accept(pizzaDTO, recordEx);
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
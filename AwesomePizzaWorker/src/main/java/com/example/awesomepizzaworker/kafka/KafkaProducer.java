@@ -2,34 +2,166 @@ package com.example.awesomepizzaworker.kafka;
 
 import com.example.awesomepizzaworker.dto.PizzaDTO;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RetriableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 
 @Component
 public class KafkaProducer {
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private static final Logger logger = LoggerFactory.getLogger(KafkaProducer.class);
 
+    private final KafkaTemplate<String, byte[]> kafkaTemplate;
+    private final OrderMessageCodec orderMessageCodec;
     private final String topicName = "preparation-topic";
+    private final Timer sendSuccessTimer;
+    private final Timer sendFailureTimer;
+    private final ProducerRetryBuffer retryBuffer;
+    private final int maxRetries;
+    private final Counter retriedMessages;
+    private final MeterRegistry meterRegistry;
 
-    public KafkaProducer(KafkaTemplate<String, String> kafkaTemplate, ObjectMapper objectMapper) {
+    public KafkaProducer(KafkaTemplate<String, byte[]> kafkaTemplate, OrderMessageCodec orderMessageCodec,
+                         MeterRegistry meterRegistry,
+                         @Value("${kafka.producer.retry.buffer-capacity:1000}") int retryBufferCapacity,
+                         @Value("${kafka.producer.retry.max-retries:3}") int maxRetries) {
         this.kafkaTemplate = kafkaTemplate;
-        this.objectMapper = objectMapper;
+        this.orderMessageCodec = orderMessageCodec;
+        this.meterRegistry = meterRegistry;
+        this.sendSuccessTimer = sendTimer(meterRegistry, "success");
+        this.sendFailureTimer = sendTimer(meterRegistry, "failure");
+        this.retryBuffer = new ProducerRetryBuffer(retryBufferCapacity);
+        this.maxRetries = maxRetries;
+        this.retriedMessages = Counter.builder("kafka.send.retried")
+                .description("Messages sent again from the retry buffer after a transient broker error")
+                .tag("topic", topicName)
+                .register(meterRegistry);
+        Gauge.builder("kafka.send.retry.buffered", retryBuffer, ProducerRetryBuffer::size)
+                .description("Messages waiting in the retry buffer")
+                .tag("topic", topicName)
+                .register(meterRegistry);
+    }
+
+    private Timer sendTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("kafka.send")
+                .description("Time from sending a message until the broker acknowledges it")
+                .tag("topic", topicName)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     /**
-     * Sends the order message to the Kafka topic.
+     * Sends the order message to the Kafka topic in the configured wire format, keyed by order ID
+     * so that all messages of an order land on the same partition. The time until the broker acknowledges
+     * the message is recorded in the {@code kafka.send} timer. A send failing with a transient broker error is
+     * buffered and sent again every {@code kafka.producer.retry.interval-ms}, up to
+     * {@code kafka.producer.retry.max-retries} times; messages of the same order sent after it failed wait behind it,
+     * while those already in flight may overtake it.
      *
      * @param pizzaDTO The pizza to be sent.
+     * @return The future completed when the broker acknowledges the message, or failed when the message is dropped.
      * @throws JsonProcessingException if the order cannot be converted to JSON.
      */
-    public void sendMessage(PizzaDTO pizzaDTO) throws JsonProcessingException {
-        objectMapper.registerModule(new JavaTimeModule());
-        String jsonString = objectMapper.writeValueAsString(pizzaDTO);
-        kafkaTemplate.send(topicName, jsonString);
+    public CompletableFuture<SendResult<String, byte[]>> sendMessage(PizzaDTO pizzaDTO) throws JsonProcessingException {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topicName, pizzaDTO.getOrderId(),
+                orderMessageCodec.encode(pizzaDTO));
+        record.headers().add(WireFormat.HEADER, orderMessageCodec.getWireFormat().headerValue());
+        ProducerRetryBuffer.PendingSend pending = new ProducerRetryBuffer.PendingSend(record);
+        if (retryBuffer.isHeld(pizzaDTO.getOrderId())) {
+            buffer(pending, null);
+        } else {
+            send(pending);
+        }
+        return pending.delivery();
+    }
+
+    private void send(ProducerRetryBuffer.PendingSend pending) {
+        send(pending.record()).whenComplete((result, ex) -> {
+            if (ex == null) {
+                retryBuffer.release(pending);
+                pending.delivery().complete(result);
+            } else if (!isTransient(ex)) {
+                drop(pending.failed(), "non_retriable", ex);
+            } else if (pending.attempts() < maxRetries) {
+                buffer(pending.failed(), ex);
+            } else {
+                drop(pending.failed(), "retries_exhausted", ex);
+            }
+        });
+    }
+
+    private void buffer(ProducerRetryBuffer.PendingSend pending, Throwable cause) {
+        if (!retryBuffer.offer(pending)) {
+            drop(pending, "buffer_full", cause);
+        }
+    }
+
+    private void drop(ProducerRetryBuffer.PendingSend pending, String reason, Throwable cause) {
+        retryBuffer.release(pending);
+        meterRegistry.counter("kafka.send.dropped", "topic", topicName, "reason", reason).increment();
+        logger.error("Dropping message for order with id: {} after {} failed sends ({}).", pending.record().key(),
+                pending.attempts(), reason, cause);
+        pending.delivery().completeExceptionally(cause != null ? cause
+                : new IllegalStateException("Retry buffer of " + topicName + " is full"));
+    }
+
+    private static boolean isTransient(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RetriableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${kafka.producer.retry.interval-ms:1000}")
+    public void retryBufferedMessages() {
+        resendBuffered();
+    }
+
+    /**
+     * Sends the buffered messages again, oldest first.
+     *
+     * @return The number of messages sent again.
+     */
+    public int resendBuffered() {
+        List<ProducerRetryBuffer.PendingSend> pending = retryBuffer.drain();
+        pending.forEach(this::send);
+        retriedMessages.increment(pending.size());
+        return pending.size();
+    }
+
+    /**
+     * @return The number of messages waiting in the retry buffer.
+     */
+    public int getRetryBufferSize() {
+        return retryBuffer.size();
+    }
+
+    private CompletableFuture<SendResult<String, byte[]>> send(ProducerRecord<String, byte[]> record) {
+        Timer.Sample sample = Timer.start();
+        CompletableFuture<SendResult<String, byte[]>> future;
+        try {
+            future = kafkaTemplate.send(record);
+        } catch (RuntimeException ex) {
+            future = CompletableFuture.failedFuture(ex);
+        }
+        future.whenComplete((result, ex) -> sample.stop(ex == null ? sendSuccessTimer : sendFailureTimer));
+        return future;
     }
-}
\ No newline at end of file
+}
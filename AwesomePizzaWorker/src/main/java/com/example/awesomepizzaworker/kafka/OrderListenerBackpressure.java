@@ -0,0 +1,43 @@
+package com.example.awesomepizzaworker.kafka;
+
+import com.example.awesomepizzaworker.service.KitchenBackpressure;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pauses the 'order-topic' listener container while the kitchen queue is full. A paused container keeps polling,
+ * so the consumers stay in the group, but fetches no records: new orders wait in Kafka instead of in memory.
+ * Records of the poll in progress are still delivered.
+ */
+@Component
+public class OrderListenerBackpressure implements KitchenBackpressure {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderListenerBackpressure.class);
+
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+    public OrderListenerBackpressure(KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry) {
+        this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    }
+
+    @Override
+    public void pauseIntake() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(KafkaConsumer.LISTENER_ID);
+        if (container != null) {
+            container.pause();
+            logger.info("Kitchen queue is full, paused order-topic consumption");
+        }
+    }
+
+    @Override
+    public void resumeIntake() {
+        MessageListenerContainer container = kafkaListenerEndpointRegistry.getListenerContainer(KafkaConsumer.LISTENER_ID);
+        if (container != null) {
+            container.resume();
+            logger.info("Kitchen queue has room again, resumed order-topic consumption");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.awesomepizzaworker.kafka;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Bounded buffer of messages whose send failed with a transient broker error, waiting to be sent again.
+ * <p>
+ * A buffered message holds its key until it is finally delivered or dropped. Messages sent with a held key are
+ * buffered behind it instead of being sent. A message of the same order that was already in flight when the send
+ * failed is not held back, so a retried IN_PROGRESS can still arrive after the COMPLETED; AwesomePizza ignores status
+ * updates that do not move an order forward.
+ */
+class ProducerRetryBuffer {
+
+    private final int capacity;
+    private final Deque<PendingSend> buffered = new ArrayDeque<>();
+    private final Map<String, Integer> heldKeys = new HashMap<>();
+
+    ProducerRetryBuffer(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Buffers a message behind the messages already buffered.
+     *
+     * @return false if the buffer is full.
+     */
+    synchronized boolean offer(PendingSend send) {
+        if (buffered.size() >= capacity) {
+            return false;
+        }
+        if (!send.holdsKey()) {
+            heldKeys.merge(send.record().key(), 1, Integer::sum);
+        }
+        buffered.addLast(send.holdingKey());
+        return true;
+    }
+
+    /**
+     * @return Whether a buffered message, or one being sent again, has the given key.
+     */
+    synchronized boolean isHeld(String key) {
+        return heldKeys.containsKey(key);
+    }
+
+    /**
+     * Releases the key of a message taken from the buffer once it is delivered or dropped.
+     */
+    synchronized void release(PendingSend send) {
+        if (send.holdsKey()) {
+            heldKeys.computeIfPresent(send.record().key(), (key, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * Takes all buffered messages, oldest first. Their keys stay held until they are released.
+     */
+    synchronized List<PendingSend> drain() {
+        List<PendingSend> sends = new ArrayList<>(buffered);
+        buffered.clear();
+        return sends;
+    }
+
+    synchronized int size() {
+        return buffered.size();
+    }
+
+    /**
+     * A message on its way to the broker.
+     *
+     * @param record   The record to send.
+     * @param delivery The future returned to the caller, completed once the message is delivered or dropped.
+     * @param attempts The sends that already failed.
+     * @param holdsKey Whether the message went through the buffer and holds its key.
+     */
+    record PendingSend(ProducerRecord<String, byte[]> record, CompletableFuture<SendResult<String, byte[]>> delivery,
+                       int attempts, boolean holdsKey) {
+
+        PendingSend(ProducerRecord<String, byte[]> record) {
+            this(record, new CompletableFuture<>(), 0, false);
+        }
+
+        PendingSend failed() {
+            return new PendingSend(record, delivery, attempts + 1, holdsKey);
+        }
+
+        private PendingSend holdingKey() {
+            return holdsKey ? this : new PendingSend(record, delivery, attempts, true);
+        }
+    }
+}
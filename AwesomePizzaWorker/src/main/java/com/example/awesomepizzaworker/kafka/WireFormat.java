@@ -0,0 +1,54 @@
+package com.example.awesomepizzaworker.kafka;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Payload formats of the order-topic and preparation-topic messages, named by the {@value #HEADER} record header.
+ * Messages without the header were written before the header existed and are JSON.
+ */
+public enum WireFormat {
+    JSON("application/json"),
+    BINARY("application/vnd.awesomepizza.order.v1");
+
+    public static final String HEADER = "contentType";
+
+    private final String contentType;
+    private final byte[] headerValue;
+
+    WireFormat(String contentType) {
+        this.contentType = contentType;
+        this.headerValue = contentType.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] headerValue() {
+        return headerValue.clone();
+    }
+
+    /**
+     * Resolves the format of a received message from its headers.
+     *
+     * @param headers The record headers.
+     * @return The format named by the content type header, or JSON if the header is missing.
+     * @throws IllegalArgumentException if the content type is not supported.
+     */
+    public static WireFormat fromHeaders(Headers headers) {
+        Header header = headers.lastHeader(HEADER);
+        if (header == null || header.value() == null) {
+            return JSON;
+        }
+        String contentType = new String(header.value(), StandardCharsets.UTF_8);
+        for (WireFormat format : values()) {
+            if (format.contentType.equals(contentType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported message content type: " + contentType);
+    }
+}
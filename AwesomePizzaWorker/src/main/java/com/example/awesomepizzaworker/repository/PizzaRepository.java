@@ -1,12 +1,48 @@
 package com.example.awesomepizzaworker.repository;
 
+import com.example.awesomepizzaworker.entity.OrderStatus;
 import com.example.awesomepizzaworker.entity.Pizza;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PizzaRepository extends JpaRepository<Pizza, Long> {
     Optional<Pizza> findByOrderId (String orderId);
+
+    @Query("select p.orderId from Pizza p")
+    Stream<String> streamAllOrderIds();
+
+    /**
+     * Pizzas in a status that were last updated before the given time, oldest first, served by
+     * idx_pizza_preparation_status_update_time.
+     */
+    List<Pizza> findByStatusAndUpdateTimeBeforeOrderByUpdateTimeAscIdAsc(OrderStatus status, LocalDateTime updateTime);
+
+    /**
+     * Takes over a pizza last updated before the cutoff by setting its update time, so that of several instances
+     * starting at once only one prepares it again.
+     *
+     * @return 1 if the pizza was taken over, 0 if it was updated or taken over in the meantime.
+     */
+    @Modifying
+    @Transactional
+    @Query("update Pizza p set p.updateTime = :updateTime " +
+            "where p.orderId = :orderId and p.status = :status and p.updateTime < :cutoff")
+    int takeOver(@Param("orderId") String orderId, @Param("status") OrderStatus status,
+                 @Param("cutoff") LocalDateTime cutoff, @Param("updateTime") LocalDateTime updateTime);
+
+    @Modifying
+    @Transactional
+    @Query("update Pizza p set p.status = :status, p.updateTime = :updateTime where p.orderId = :orderId")
+    int updateStatus(@Param("orderId") String orderId, @Param("status") OrderStatus status,
+                     @Param("updateTime") LocalDateTime updateTime);
 }
@@ -0,0 +1,11 @@
+package com.example.awesomepizzaworker.service;
+
+/**
+ * Stops and restarts the intake of new orders when the kitchen queue is full or has room again.
+ */
+public interface KitchenBackpressure {
+
+    void pauseIntake();
+
+    void resumeIntake();
+}
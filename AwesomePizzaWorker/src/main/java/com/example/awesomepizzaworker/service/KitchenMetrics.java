@@ -0,0 +1,91 @@
+package com.example.awesomepizzaworker.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Kitchen throughput metrics:
+ * <ul>
+ *     <li>{@code kitchen.preparations.in.progress}: gauge of pizzas handed over to the kitchen and not completed yet,</li>
+ *     <li>{@code kitchen.ovens.busy} and {@code kitchen.queue.size}: gauges of busy ovens and pizzas waiting for one,</li>
+ *     <li>{@code kitchen.queue.delay}: time from handing a pizza over until its preparation starts,</li>
+ *     <li>{@code kitchen.preparation}: preparation time by pizza type; its count is the number of completed pizzas.</li>
+ * </ul>
+ * At most {@code kitchen.metrics.max-pizza-types} distinct pizza types are used as tags, any further type
+ * is recorded as "other".
+ */
+@Component
+public class KitchenMetrics {
+
+    static final String OTHER = "other";
+    static final String UNKNOWN = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxPizzaTypes;
+    private final Set<String> pizzaTypes = ConcurrentHashMap.newKeySet();
+    private final Timer queueDelayTimer;
+
+    public KitchenMetrics(MeterRegistry meterRegistry, @Value("${kitchen.metrics.max-pizza-types:50}") int maxPizzaTypes) {
+        this.meterRegistry = meterRegistry;
+        this.maxPizzaTypes = maxPizzaTypes;
+        this.queueDelayTimer = Timer.builder("kitchen.queue.delay")
+                .description("Time from handing a pizza over to the kitchen until its preparation starts")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void registerPreparationsInProgress(AtomicInteger preparationsInProgress) {
+        Gauge.builder("kitchen.preparations.in.progress", preparationsInProgress, AtomicInteger::get)
+                .description("Pizzas handed over to the kitchen and not completed yet")
+                .register(meterRegistry);
+    }
+
+    public void registerOvens(Supplier<Number> busyOvens, Supplier<Number> waitingPizzas) {
+        Gauge.builder("kitchen.ovens.busy", busyOvens)
+                .description("Ovens preparing a pizza")
+                .register(meterRegistry);
+        Gauge.builder("kitchen.queue.size", waitingPizzas)
+                .description("Pizzas waiting for a free oven")
+                .register(meterRegistry);
+    }
+
+    public void preparationStarted(Duration queueDelay) {
+        queueDelayTimer.record(queueDelay);
+    }
+
+    public void preparationCompleted(String pizzaType, Duration preparationTime) {
+        Timer.builder("kitchen.preparation")
+                .description("Preparation time of completed pizzas")
+                .tag("pizza_type", pizzaTypeTag(pizzaType))
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(preparationTime);
+    }
+
+    String pizzaTypeTag(String pizzaType) {
+        if (pizzaType == null || pizzaType.isBlank()) {
+            return UNKNOWN;
+        }
+        String tag = pizzaType.trim().toLowerCase(Locale.ROOT);
+        if (pizzaTypes.contains(tag)) {
+            return tag;
+        }
+        synchronized (pizzaTypes) {
+            if (pizzaTypes.size() < maxPizzaTypes) {
+                pizzaTypes.add(tag);
+                return tag;
+            }
+        }
+        return pizzaTypes.contains(tag) ? tag : OTHER;
+    }
+}
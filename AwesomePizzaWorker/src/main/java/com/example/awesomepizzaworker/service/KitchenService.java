@@ -0,0 +1,245 @@
+package com.example.awesomepizzaworker.service;
+
+import com.example.awesomepizzaworker.config.KitchenProperties;
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.example.awesomepizzaworker.entity.OrderStatus;
+import com.example.awesomepizzaworker.entity.Pizza;
+import com.example.awesomepizzaworker.kafka.KafkaProducer;
+import com.example.awesomepizzaworker.repository.PizzaRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Prepares pizzas in a fixed number of ovens ({@code kitchen.ovens}). Pizzas arriving while every oven is busy wait
+ * in a queue. When {@code kitchen.queue-capacity} pizzas are waiting, the intake of new orders is paused through
+ * {@link KitchenBackpressure}. It is resumed once the queue has drained to half its capacity, so the consumer is
+ * not switched on and off for every pizza.
+ * <p>
+ * The queue and the oven timers only live in memory. A pizza is stored as IN_PROGRESS when it is accepted and as
+ * COMPLETED when its preparation has finished. At startup, before the Kafka listeners start, pizzas that are still
+ * IN_PROGRESS and were not updated for {@code kitchen.resume-after} are taken to be lost with a stopped instance and
+ * are prepared again. Pizzas updated more recently may still be cooking in another instance sharing the database.
+ */
+@Service
+public class KitchenService implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(KitchenService.class);
+
+    private final TaskScheduler kitchenScheduler;
+    private final KafkaProducer kafkaProducer;
+    private final PizzaRepository pizzaRepository;
+    private final KitchenProperties kitchenProperties;
+    private final KitchenMetrics kitchenMetrics;
+    private final KitchenBackpressure kitchenBackpressure;
+    private final AtomicInteger preparationsInProgress = new AtomicInteger();
+    private final Object ovenLock = new Object();
+    private final Deque<WaitingPizza> waitingPizzas = new ArrayDeque<>();
+    private int busyOvens;
+    private boolean intakePaused;
+    private volatile boolean running;
+
+    public KitchenService(@Qualifier("kitchenScheduler") TaskScheduler kitchenScheduler,
+                          KafkaProducer kafkaProducer,
+                          PizzaRepository pizzaRepository,
+                          KitchenProperties kitchenProperties,
+                          KitchenMetrics kitchenMetrics,
+                          KitchenBackpressure kitchenBackpressure) {
+        this.kitchenScheduler = kitchenScheduler;
+        this.kafkaProducer = kafkaProducer;
+        this.pizzaRepository = pizzaRepository;
+        this.kitchenProperties = kitchenProperties;
+        this.kitchenMetrics = kitchenMetrics;
+        this.kitchenBackpressure = kitchenBackpressure;
+        kitchenMetrics.registerPreparationsInProgress(preparationsInProgress);
+        kitchenMetrics.registerOvens(this::getBusyOvens, this::getWaitingPizzas);
+    }
+
+    /**
+     * Hands a pizza over to the kitchen and returns immediately. The pizza goes into a free oven, or waits for one.
+     * The IN_PROGRESS message is sent when preparation starts and the COMPLETED
+     * message when the preparation time of the pizza type has elapsed.
+     *
+     * @param pizzaDTO The pizza to prepare.
+     */
+    public void startPreparation(PizzaDTO pizzaDTO) {
+        preparationsInProgress.incrementAndGet();
+        WaitingPizza pizza = new WaitingPizza(pizzaDTO, System.nanoTime());
+        synchronized (ovenLock) {
+            if (busyOvens >= kitchenProperties.getOvens()) {
+                waitingPizzas.addLast(pizza);
+                if (!intakePaused && waitingPizzas.size() >= kitchenProperties.getQueueCapacity()) {
+                    intakePaused = true;
+                    kitchenBackpressure.pauseIntake();
+                }
+                return;
+            }
+            busyOvens++;
+        }
+        scheduleBeginPreparation(pizza);
+    }
+
+    /**
+     * Prepares the pizzas that were accepted but not completed before the last shutdown or crash again.
+     * Their redelivered PENDING messages are recognized as duplicates, so nothing else would complete them.
+     * Only pizzas not updated for {@code kitchen.resume-after} are resumed, each after taking it over in the database.
+     */
+    public void resumeUnfinishedPreparations() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(kitchenProperties.getResumeAfter());
+        int resumed = 0;
+        try {
+            for (Pizza pizza : pizzaRepository.findByStatusAndUpdateTimeBeforeOrderByUpdateTimeAscIdAsc(
+                    OrderStatus.IN_PROGRESS, cutoff)) {
+                if (pizzaRepository.takeOver(pizza.getOrderId(), OrderStatus.IN_PROGRESS, cutoff, now) == 1) {
+                    pizza.setUpdateTime(now);
+                    startPreparation(PizzaService.mapPizzaEntityToDTO(pizza));
+                    resumed++;
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.error("Error reading unfinished pizzas", e);
+        }
+        if (resumed > 0) {
+            logger.info("Resumed preparation of {} unfinished pizzas", resumed);
+        }
+    }
+
+    /**
+     * Resumes unfinished preparations before the Kafka listener containers start, so that no pizza accepted by
+     * this instance is mistaken for an unfinished one.
+     */
+    @Override
+    public void start() {
+        resumeUnfinishedPreparations();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return AbstractMessageListenerContainer.DEFAULT_PHASE - 1;
+    }
+
+    public int getPreparationsInProgress() {
+        return preparationsInProgress.get();
+    }
+
+    public int getBusyOvens() {
+        synchronized (ovenLock) {
+            return busyOvens;
+        }
+    }
+
+    public int getWaitingPizzas() {
+        synchronized (ovenLock) {
+            return waitingPizzas.size();
+        }
+    }
+
+    private void scheduleBeginPreparation(WaitingPizza pizza) {
+        try {
+            kitchenScheduler.schedule(() -> beginPreparation(pizza.pizzaDTO(), pizza.handedOverAt()), Instant.now());
+        } catch (RuntimeException e) {
+            abandonPreparation(pizza.pizzaDTO(), e);
+        }
+    }
+
+    void beginPreparation(PizzaDTO pizzaDTO, long handedOverAt) {
+        long startedAt = System.nanoTime();
+        kitchenMetrics.preparationStarted(Duration.ofNanos(startedAt - handedOverAt));
+        Duration preparationTime = kitchenProperties.preparationTimeFor(pizzaDTO.getPizzaType());
+        pizzaDTO.setStatus(OrderStatus.IN_PROGRESS.name());
+        pizzaDTO.setUpdateTime(LocalDateTime.now());
+        publish(pizzaDTO);
+        try {
+            kitchenScheduler.schedule(() -> completePreparation(pizzaDTO, startedAt), Instant.now().plus(preparationTime));
+        } catch (RuntimeException e) {
+            abandonPreparation(pizzaDTO, e);
+            return;
+        }
+        logger.info("Started preparation of order {} for {}", pizzaDTO.getOrderId(), preparationTime);
+    }
+
+    void completePreparation(PizzaDTO pizzaDTO, long startedAt) {
+        try {
+            pizzaDTO.setStatus(OrderStatus.COMPLETED.name());
+            kitchenMetrics.preparationCompleted(pizzaDTO.getPizzaType(), Duration.ofNanos(System.nanoTime() - startedAt));
+            pizzaDTO.setUpdateTime(LocalDateTime.now());
+            publish(pizzaDTO);
+            // Stored after sending: a crash in between prepares the pizza again instead of never completing it.
+            pizzaRepository.updateStatus(pizzaDTO.getOrderId(), OrderStatus.COMPLETED, pizzaDTO.getUpdateTime());
+            logger.info("Completed preparation of order {}", pizzaDTO.getOrderId());
+        } catch (DataAccessException e) {
+            logger.error("Error storing completion of order {}", pizzaDTO.getOrderId(), e);
+        } finally {
+            preparationsInProgress.decrementAndGet();
+            releaseOven();
+        }
+    }
+
+    /**
+     * Hands the oven to the next waiting pizza, if any, and resumes the intake once the queue has drained.
+     */
+    private void releaseOven() {
+        WaitingPizza next;
+        synchronized (ovenLock) {
+            next = waitingPizzas.pollFirst();
+            if (next == null) {
+                busyOvens--;
+            }
+            if (intakePaused && waitingPizzas.size() <= kitchenProperties.getQueueCapacity() / 2) {
+                intakePaused = false;
+                kitchenBackpressure.resumeIntake();
+            }
+        }
+        if (next != null) {
+            scheduleBeginPreparation(next);
+        }
+    }
+
+    /**
+     * Frees the oven of a pizza whose timer could not be scheduled, e.g. during shutdown. The pizza stays
+     * IN_PROGRESS and is prepared again at the next startup.
+     */
+    private void abandonPreparation(PizzaDTO pizzaDTO, RuntimeException cause) {
+        logger.error("Could not schedule preparation of order {}", pizzaDTO.getOrderId(), cause);
+        preparationsInProgress.decrementAndGet();
+        releaseOven();
+    }
+
+    private void publish(PizzaDTO pizzaDTO) {
+        try {
+            kafkaProducer.sendMessage(pizzaDTO);
+        } catch (JsonProcessingException e) {
+            logger.error("Error processing JSON for {} message of order {}", pizzaDTO.getStatus(), pizzaDTO.getOrderId(), e);
+        } catch (Exception e) {
+            logger.error("Error sending {} message for order {}", pizzaDTO.getStatus(), pizzaDTO.getOrderId(), e);
+        }
+    }
+
+    private record WaitingPizza(PizzaDTO pizzaDTO, long handedOverAt) {
+    }
+}
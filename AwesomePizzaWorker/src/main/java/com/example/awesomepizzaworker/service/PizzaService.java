@@ -9,13 +9,22 @@ import com.example.awesomepizzaworker.error.ServiceException;
 import com.example.awesomepizzaworker.kafka.KafkaProducer;
 import com.example.awesomepizzaworker.repository.PizzaRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -25,11 +34,16 @@ public class PizzaService {
 
     private final PizzaRepository pizzaRepository;
     private final KafkaProducer kafkaProducer;
+    private final KitchenService kitchenService;
+    private final SeenOrderFilter seenOrderFilter;
 
     @Autowired
-    public PizzaService(PizzaRepository pizzaRepository, KafkaProducer kafkaProducer) {
+    public PizzaService(PizzaRepository pizzaRepository, KafkaProducer kafkaProducer, KitchenService kitchenService,
+                        SeenOrderFilter seenOrderFilter) {
         this.pizzaRepository = pizzaRepository;
         this.kafkaProducer = kafkaProducer;
+        this.kitchenService = kitchenService;
+        this.seenOrderFilter = seenOrderFilter;
     }
 
     /**
@@ -40,11 +54,11 @@ public class PizzaService {
      * @throws DatabaseException      If a database error occurs.
      * @throws OrderNotFoundException If the order with the given ID is not found.
      */
+    @Timed(value = "pizza.order.process", histogram = true)
     public void processPendingPizzaOrder(PizzaDTO pizzaDTO) {
         try {
             if (OrderStatus.PENDING.name().equals(pizzaDTO.getStatus())) {
-                Optional<Pizza> optionalExistingOrder = pizzaRepository.findByOrderId(pizzaDTO.getOrderId());
-                if (optionalExistingOrder.isPresent()) {
+                if (isRedelivery(pizzaDTO)) {
                     logger.info("Order already exists with id: {}", pizzaDTO.getId());
                 } else {
                     handleNewOrder(pizzaDTO);
@@ -63,14 +77,114 @@ public class PizzaService {
             throw new OrderNotFoundException("Order not found with id: " + pizzaDTO.getOrderId(), e);
         }
     }
+
+    /**
+     * Processes a batch of order messages in one transaction. New PENDING orders are stored with a single
+     * batched insert and handed over to the kitchen once the transaction commits. Other messages are
+     * handled as in {@link #processPendingPizzaOrder(PizzaDTO)} once the transaction commits.
+     *
+     * @param pizzaDTOs The order messages, in the order they were received.
+     * @return The number of new orders stored.
+     * @throws DatabaseException If an error occurs while saving the pizzas.
+     */
+    @Timed(value = "pizza.order.process.batch", histogram = true)
     @Transactional
-    public void handleNewOrder(PizzaDTO pizzaDTO) throws JsonProcessingException, DatabaseException {
+    public int processPendingPizzaOrders(List<PizzaDTO> pizzaDTOs) {
+        try {
+            Map<String, Pizza> newOrders = new LinkedHashMap<>();
+            List<PizzaDTO> inProgressOrders = new ArrayList<>();
+            for (PizzaDTO pizzaDTO : pizzaDTOs) {
+                if (OrderStatus.PENDING.name().equals(pizzaDTO.getStatus())) {
+                    if (newOrders.containsKey(pizzaDTO.getOrderId()) || isRedelivery(pizzaDTO)) {
+                        logger.info("Order already exists with id: {}", pizzaDTO.getOrderId());
+                    } else {
+                        newOrders.put(pizzaDTO.getOrderId(), createPizzaFromDTO(pizzaDTO));
+                    }
+                } else if (OrderStatus.IN_PROGRESS.name().equals(pizzaDTO.getStatus())) {
+                    inProgressOrders.add(pizzaDTO);
+                }
+            }
+            pizzaRepository.saveAllAndFlush(newOrders.values());
+            // Messages are only sent once the batch is committed, so a rolled back batch processed again one by
+            // one does not send them twice.
+            afterCommit(() -> {
+                for (Pizza pizza : newOrders.values()) {
+                    seenOrderFilter.add(pizza.getOrderId());
+                    kitchenService.startPreparation(mapPizzaEntityToDTO(pizza));
+                }
+                for (PizzaDTO pizzaDTO : inProgressOrders) {
+                    try {
+                        handleInProgressOrder(pizzaDTO);
+                    } catch (JsonProcessingException e) {
+                        logger.error("Error processing in progress order {}", pizzaDTO.getOrderId(), e);
+                    }
+                }
+            });
+            logger.info("Processed {} order messages, stored {} new orders.", pizzaDTOs.size(), newOrders.size());
+            return newOrders.size();
+        } catch (DataAccessException e) {
+            logger.error("Error saving pizza orders", e);
+            throw new DatabaseException("Error saving pizza orders", e);
+        }
+    }
+
+    /**
+     * Runs the action once the current transaction commits, or immediately if there is none.
+     */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Checks whether a PENDING message was already handled. The database is only queried
+     * if {@link SeenOrderFilter} has possibly seen the order.
+     */
+    private boolean isRedelivery(PizzaDTO pizzaDTO) {
+        if (!seenOrderFilter.mightContain(pizzaDTO.getOrderId())) {
+            return false;
+        }
+        Optional<Pizza> optionalExistingOrder = pizzaRepository.findByOrderId(pizzaDTO.getOrderId());
+        seenOrderFilter.recordLookup(optionalExistingOrder.isPresent());
+        return optionalExistingOrder.isPresent();
+    }
+
+    /**
+     * Stores a new pizza order and hands it over to the kitchen timers,
+     * so the listener thread is free as soon as the order is saved.
+     * {@link SeenOrderFilter} only knows the orders of this instance, so after a rebalance a redelivered order
+     * may look new; the insert then violates the unique order ID and the message is treated as a redelivery.
+     * Not transactional on purpose: the insert commits on its own, so the lookup after a violation does not run
+     * in a transaction that is already marked rollback-only (or aborted, on PostgreSQL).
+     *
+     * @param pizzaDTO The pizza DTO containing order information.
+     * @throws DatabaseException If an error occurs while saving the pizza.
+     */
+    public void handleNewOrder(PizzaDTO pizzaDTO) throws DatabaseException {
         Pizza newOrder = createPizzaFromDTO(pizzaDTO);
-        savePizza(newOrder);
-        PizzaDTO newPizzaDTO = mapPizzaEntityToDTO(newOrder);
-        sendMessage(newPizzaDTO);
-        processOrder();
-        handleInProgressOrder(newPizzaDTO);
+        try {
+            savePizza(newOrder);
+        } catch (DatabaseException e) {
+            if (!(e.getCause() instanceof DataIntegrityViolationException)
+                    || pizzaRepository.findByOrderId(newOrder.getOrderId()).isEmpty()) {
+                throw e;
+            }
+            logger.info("Order already exists with id: {}", newOrder.getOrderId());
+            seenOrderFilter.add(newOrder.getOrderId());
+            return;
+        }
+        afterCommit(() -> {
+            seenOrderFilter.add(newOrder.getOrderId());
+            kitchenService.startPreparation(mapPizzaEntityToDTO(newOrder));
+        });
     }
 
     @Transactional
@@ -89,7 +203,7 @@ public class PizzaService {
         newOrder.setOrderId(pizzaDTO.getOrderId());
         newOrder.setPizzaType(pizzaDTO.getPizzaType());
         newOrder.setNote(pizzaDTO.getNote());
-        newOrder.setStatus(OrderStatus.IN_PROGRESS.name());
+        newOrder.setStatus(OrderStatus.IN_PROGRESS);
         newOrder.setReceivedTime(LocalDateTime.now());
         newOrder.setUpdateTime(LocalDateTime.now());
         return newOrder;
@@ -104,23 +218,15 @@ public class PizzaService {
         }
     }
 
-    private PizzaDTO mapPizzaEntityToDTO(Pizza pizza) {
+    static PizzaDTO mapPizzaEntityToDTO(Pizza pizza) {
         PizzaDTO newPizzaDTO = new PizzaDTO();
         newPizzaDTO.setId(pizza.getId());
         newPizzaDTO.setOrderId(pizza.getOrderId());
         newPizzaDTO.setPizzaType(pizza.getPizzaType());
         newPizzaDTO.setNote(pizza.getNote());
-        newPizzaDTO.setStatus(pizza.getStatus());
+        newPizzaDTO.setStatus(pizza.getStatus() == null ? null : pizza.getStatus().name());
         newPizzaDTO.setOrderTime(pizza.getReceivedTime());
         newPizzaDTO.setUpdateTime(pizza.getUpdateTime());
         return newPizzaDTO;
     }
-
-    public void processOrder() {
-        try {
-            Thread.sleep(6000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
 }
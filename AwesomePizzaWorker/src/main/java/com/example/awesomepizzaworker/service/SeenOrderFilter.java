@@ -0,0 +1,157 @@
+package com.example.awesomepizzaworker.service;
+
+import com.example.awesomepizzaworker.repository.PizzaRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the order IDs stored in {@code pizza_preparation}, used to skip the redelivery lookup of
+ * {@link PizzaService} for orders that were certainly never seen. It has no false negatives, so the database is
+ * only queried on a possible hit; false positives just cost the lookup that would have been made anyway.
+ * <p>
+ * The filter is rebuilt from the table at startup, before the listener containers start, and answers "possibly seen"
+ * for every order until then. It is sized for {@code pizza.seen-filter.expected-orders}; beyond that the false
+ * positive rate grows, and so does the number of lookups, but the result stays correct.
+ * <p>
+ * Lookups are counted in {@code pizza.seen.filter.lookups} by result: {@code avoided}, {@code duplicate}
+ * and {@code false_positive}.
+ */
+@Component
+public class SeenOrderFilter implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(SeenOrderFilter.class);
+
+    private final PizzaRepository pizzaRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+    private final Counter avoidedLookups;
+    private final Counter duplicates;
+    private final Counter falsePositives;
+    private volatile boolean ready;
+
+    public SeenOrderFilter(PizzaRepository pizzaRepository,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${pizza.seen-filter.expected-orders:1000000}") long expectedOrders,
+                           @Value("${pizza.seen-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.pizzaRepository = pizzaRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        long optimalBits = (long) Math.ceil(-expectedOrders * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bits = new AtomicLongArray((int) Math.max(1, (optimalBits + 63) / 64));
+        this.bitCount = bits.length() * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedOrders * Math.log(2)));
+        this.avoidedLookups = lookupCounter(meterRegistry, "avoided");
+        this.duplicates = lookupCounter(meterRegistry, "duplicate");
+        this.falsePositives = lookupCounter(meterRegistry, "false_positive");
+        Gauge.builder("pizza.seen.filter.orders", insertions, AtomicLong::get)
+                .description("Order IDs added to the seen-order filter")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("pizza.seen.filter.lookups")
+                .description("Redelivery checks of PENDING messages by result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /**
+     * Adds every order ID stored in {@code pizza_preparation} to the filter and starts answering lookups.
+     */
+    public void rebuild() {
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<String> orderIds = pizzaRepository.streamAllOrderIds()) {
+                orderIds.forEach(this::add);
+            }
+        });
+        ready = true;
+        logger.info("Loaded {} order IDs into the seen-order filter in {} ms", insertions.get(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void add(String orderId) {
+        long hash = hash(orderId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+            } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+        }
+        insertions.incrementAndGet();
+    }
+
+    /**
+     * Tells whether an order may have been seen before. A false answer is certain and counted as an avoided lookup.
+     */
+    public boolean mightContain(String orderId) {
+        if (!ready || contains(orderId)) {
+            return true;
+        }
+        avoidedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Records the result of the database lookup made after {@link #mightContain} answered true.
+     */
+    public void recordLookup(boolean found) {
+        (found ? duplicates : falsePositives).increment();
+    }
+
+    private boolean contains(String orderId) {
+        long hash = hash(orderId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, followed by the MurmurHash3 finalizer to spread the bits.
+     */
+    private static long hash(String orderId) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < orderId.length(); i++) {
+            hash ^= orderId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.awesomepizzaworker;
+
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.example.awesomepizzaworker.kafka.JsonOrderCodec;
+import com.example.awesomepizzaworker.kafka.KafkaProducer;
+import com.example.awesomepizzaworker.kafka.OrderMessageCodec;
+import com.example.awesomepizzaworker.kafka.WireFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.core.KafkaProducerException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+public class KafkaProducerTest {
+
+    @Mock
+    KafkaTemplate<String, byte[]> kafkaTemplate;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    List<Send> sends = new ArrayList<>();
+    KafkaProducer kafkaProducer;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            Send send = new Send(invocation.getArgument(0), new CompletableFuture<>());
+            sends.add(send);
+            return send.future();
+        });
+        kafkaProducer = new KafkaProducer(kafkaTemplate,
+                new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY), meterRegistry, 2, 1);
+    }
+
+    @Test
+    public void testDeliveryFutureCompletesWhenBrokerAcknowledges() throws JsonProcessingException {
+        CompletableFuture<SendResult<String, byte[]>> delivery = kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+
+        assertFalse(delivery.isDone());
+        sends.get(0).acknowledge();
+
+        assertTrue(delivery.isDone());
+        assertFalse(delivery.isCompletedExceptionally());
+        assertEquals(1, meterRegistry.get("kafka.send").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testTransientFailureIsSentAgainFromRetryBuffer() throws JsonProcessingException {
+        CompletableFuture<SendResult<String, byte[]>> delivery = kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+        sends.get(0).fail(new TimeoutException("broker down"));
+
+        assertFalse(delivery.isDone());
+        assertEquals(1, kafkaProducer.getRetryBufferSize());
+        assertEquals(1, kafkaProducer.resendBuffered());
+        sends.get(1).acknowledge();
+
+        assertTrue(delivery.isDone());
+        assertFalse(delivery.isCompletedExceptionally());
+        assertEquals(0, kafkaProducer.getRetryBufferSize());
+        assertEquals(1, meterRegistry.get("kafka.send").tag("outcome", "failure").timer().count());
+        assertEquals(1, meterRegistry.get("kafka.send.retried").counter().count());
+    }
+
+    @Test
+    public void testLaterMessageOfOrderWaitsBehindBufferedOne() throws JsonProcessingException {
+        kafkaProducer.sendMessage(pizza("ORD-1", "IN_PROGRESS"));
+        sends.get(0).fail(new TimeoutException("broker down"));
+
+        kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+        kafkaProducer.sendMessage(pizza("ORD-2", "COMPLETED"));
+
+        // ORD-2 is sent straight away, the COMPLETED of ORD-1 waits for its IN_PROGRESS.
+        assertEquals(List.of("ORD-1", "ORD-2"), sends.stream().map(send -> send.record().key()).toList());
+        assertEquals(2, kafkaProducer.resendBuffered());
+        assertEquals(List.of("ORD-1", "ORD-2", "ORD-1", "ORD-1"), sends.stream().map(send -> send.record().key()).toList());
+    }
+
+    @Test
+    public void testMessageIsDroppedWhenRetriesAreExhausted() throws JsonProcessingException {
+        CompletableFuture<SendResult<String, byte[]>> delivery = kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+        sends.get(0).fail(new TimeoutException("broker down"));
+        kafkaProducer.resendBuffered();
+        sends.get(1).fail(new TimeoutException("broker down"));
+
+        assertTrue(delivery.isCompletedExceptionally());
+        assertEquals(0, kafkaProducer.getRetryBufferSize());
+        assertEquals(1, meterRegistry.get("kafka.send.dropped").tag("reason", "retries_exhausted").counter().count());
+
+        // The order's key is released, so its next message is sent straight away.
+        kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+        assertEquals(3, sends.size());
+    }
+
+    @Test
+    public void testNonRetriableFailureIsNotBuffered() throws JsonProcessingException {
+        CompletableFuture<SendResult<String, byte[]>> delivery = kafkaProducer.sendMessage(pizza("ORD-1", "COMPLETED"));
+        sends.get(0).fail(new RecordTooLargeException("too large"));
+
+        assertTrue(delivery.isCompletedExceptionally());
+        assertEquals(0, kafkaProducer.getRetryBufferSize());
+        assertEquals(1, meterRegistry.get("kafka.send.dropped").tag("reason", "non_retriable").counter().count());
+    }
+
+    @Test
+    public void testMessageIsDroppedWhenRetryBufferIsFull() throws JsonProcessingException {
+        List<CompletableFuture<SendResult<String, byte[]>>> deliveries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            deliveries.add(kafkaProducer.sendMessage(pizza("ORD-" + i, "COMPLETED")));
+            sends.get(i).fail(new TimeoutException("broker down"));
+        }
+
+        assertEquals(2, kafkaProducer.getRetryBufferSize());
+        assertFalse(deliveries.get(1).isDone());
+        assertTrue(deliveries.get(2).isCompletedExceptionally());
+        assertEquals(1, meterRegistry.get("kafka.send.dropped").tag("reason", "buffer_full").counter().count());
+    }
+
+    private PizzaDTO pizza(String orderId, String status) {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId(orderId);
+        pizzaDTO.setPizzaType("Margherita");
+        pizzaDTO.setStatus(status);
+        return pizzaDTO;
+    }
+
+    record Send(ProducerRecord<String, byte[]> record, CompletableFuture<SendResult<String, byte[]>> future) {
+
+        void acknowledge() {
+            future.complete(new SendResult<>(record, null));
+        }
+
+        void fail(Exception cause) {
+            future.completeExceptionally(new KafkaProducerException(record, "Failed to send", cause));
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.awesomepizzaworker;
+
+import com.example.awesomepizzaworker.config.KitchenProperties;
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.example.awesomepizzaworker.entity.OrderStatus;
+import com.example.awesomepizzaworker.entity.Pizza;
+import com.example.awesomepizzaworker.kafka.KafkaProducer;
+import com.example.awesomepizzaworker.repository.PizzaRepository;
+import com.example.awesomepizzaworker.service.KitchenBackpressure;
+import com.example.awesomepizzaworker.service.KitchenMetrics;
+import com.example.awesomepizzaworker.service.KitchenService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.kafka.listener.AbstractMessageListenerContainer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class KitchenServiceTest {
+
+    @Mock
+    KafkaProducer kafkaProducer;
+
+    @Mock
+    KitchenBackpressure kitchenBackpressure;
+
+    @Mock
+    PizzaRepository pizzaRepository;
+
+    ThreadPoolTaskScheduler scheduler;
+    KitchenProperties kitchenProperties;
+    SimpleMeterRegistry meterRegistry;
+    KitchenService kitchenService;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.initialize();
+        kitchenProperties = new KitchenProperties();
+        kitchenProperties.setDefaultPreparationTime(Duration.ofSeconds(30));
+        kitchenProperties.getPreparationTimes().put("Margherita", Duration.ofMillis(50));
+        meterRegistry = new SimpleMeterRegistry();
+        kitchenProperties.setOvens(1);
+        kitchenProperties.setQueueCapacity(2);
+        kitchenService = new KitchenService(scheduler, kafkaProducer, pizzaRepository, kitchenProperties, new KitchenMetrics(meterRegistry, 50),
+                kitchenBackpressure);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void testPreparationTimeIsResolvedPerPizzaType() {
+        assertEquals(Duration.ofMillis(50), kitchenProperties.preparationTimeFor("margherita"));
+        assertEquals(Duration.ofSeconds(30), kitchenProperties.preparationTimeFor("Diavola"));
+        assertEquals(Duration.ofSeconds(30), kitchenProperties.preparationTimeFor(null));
+    }
+
+    @Test
+    public void testStartPreparationSendsInProgressThenCompleted() throws JsonProcessingException, InterruptedException {
+        List<String> sentStatuses = new CopyOnWriteArrayList<>();
+        CountDownLatch sent = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            sentStatuses.add(((PizzaDTO) invocation.getArgument(0)).getStatus());
+            sent.countDown();
+            return null;
+        }).when(kafkaProducer).sendMessage(any(PizzaDTO.class));
+
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("order123");
+        pizzaDTO.setPizzaType("Margherita");
+
+        kitchenService.startPreparation(pizzaDTO);
+
+        assertTrue(sent.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(OrderStatus.IN_PROGRESS.name(), OrderStatus.COMPLETED.name()), sentStatuses);
+        // The counter is released right after the COMPLETED message is handed to the producer.
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (kitchenService.getPreparationsInProgress() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, kitchenService.getPreparationsInProgress());
+        assertEquals(1, meterRegistry.get("kitchen.preparation").tag("pizza_type", "margherita").timer().count());
+        verify(pizzaRepository, timeout(2000).times(1)).updateStatus(eq("order123"), eq(OrderStatus.COMPLETED), any());
+    }
+
+    @Test
+    public void testUnfinishedPizzasArePreparedAgainAtStartup() throws JsonProcessingException {
+        Pizza pizza = new Pizza();
+        pizza.setOrderId("order789");
+        pizza.setPizzaType("Diavola");
+        pizza.setStatus(OrderStatus.IN_PROGRESS);
+        Pizza takenOver = new Pizza();
+        takenOver.setOrderId("order790");
+        takenOver.setPizzaType("Diavola");
+        takenOver.setStatus(OrderStatus.IN_PROGRESS);
+        when(pizzaRepository.findByStatusAndUpdateTimeBeforeOrderByUpdateTimeAscIdAsc(eq(OrderStatus.IN_PROGRESS), any()))
+                .thenReturn(List.of(pizza, takenOver));
+        when(pizzaRepository.takeOver(eq("order789"), eq(OrderStatus.IN_PROGRESS), any(), any())).thenReturn(1);
+
+        kitchenService.start();
+
+        verify(kafkaProducer, timeout(2000).times(1)).sendMessage(argThat(pizzaDTO ->
+                "order789".equals(pizzaDTO.getOrderId()) && OrderStatus.IN_PROGRESS.name().equals(pizzaDTO.getStatus())));
+        assertEquals(1, kitchenService.getPreparationsInProgress());
+        assertTrue(kitchenService.isRunning());
+    }
+
+    @Test
+    public void testUnfinishedPizzasAreResumedBeforeListenersStart() {
+        assertTrue(kitchenService.getPhase() < AbstractMessageListenerContainer.DEFAULT_PHASE);
+    }
+
+    @Test
+    public void testOvenIsReleasedWhenTimerCannotBeScheduled() {
+        scheduler.shutdown();
+
+        kitchenService.startPreparation(pizza("order1", "Diavola"));
+
+        assertEquals(0, kitchenService.getBusyOvens());
+        assertEquals(0, kitchenService.getPreparationsInProgress());
+    }
+
+    @Test
+    public void testStartPreparationDoesNotBlockCaller() throws JsonProcessingException {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("order456");
+        pizzaDTO.setPizzaType("Diavola");
+
+        kitchenService.startPreparation(pizzaDTO);
+
+        verify(kafkaProducer, timeout(2000).times(1)).sendMessage(any(PizzaDTO.class));
+        assertEquals(1, kitchenService.getPreparationsInProgress());
+        assertEquals(1, meterRegistry.get("kitchen.preparations.in.progress").gauge().value());
+        assertEquals(1, meterRegistry.get("kitchen.queue.delay").timer().count());
+    }
+
+    @Test
+    public void testPizzasWaitForAFreeOvenAndFullQueuePausesIntake() throws JsonProcessingException {
+        kitchenService.startPreparation(pizza("order1", "Diavola"));
+        kitchenService.startPreparation(pizza("order2", "Diavola"));
+        verify(kitchenBackpressure, never()).pauseIntake();
+        kitchenService.startPreparation(pizza("order3", "Diavola"));
+
+        verify(kafkaProducer, timeout(2000).times(1)).sendMessage(any(PizzaDTO.class));
+        assertEquals(1, kitchenService.getBusyOvens());
+        assertEquals(2, kitchenService.getWaitingPizzas());
+        assertEquals(3, kitchenService.getPreparationsInProgress());
+        verify(kitchenBackpressure, times(1)).pauseIntake();
+        verify(kitchenBackpressure, never()).resumeIntake();
+    }
+
+    @Test
+    public void testIntakeResumesOnceQueueDrains() throws JsonProcessingException {
+        for (int i = 0; i < 4; i++) {
+            kitchenService.startPreparation(pizza("order" + i, "Margherita"));
+        }
+        verify(kitchenBackpressure, times(1)).pauseIntake();
+
+        verify(kafkaProducer, timeout(5000).times(8)).sendMessage(any(PizzaDTO.class));
+        verify(kitchenBackpressure, timeout(2000).times(1)).resumeIntake();
+        assertEquals(0, kitchenService.getWaitingPizzas());
+    }
+
+    private PizzaDTO pizza(String orderId, String pizzaType) {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId(orderId);
+        pizzaDTO.setPizzaType(pizzaType);
+        return pizzaDTO;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.awesomepizzaworker;
+
+import com.example.awesomepizzaworker.dto.PizzaDTO;
+import com.example.awesomepizzaworker.kafka.BinaryOrderCodec;
+import com.example.awesomepizzaworker.kafka.JsonOrderCodec;
+import com.example.awesomepizzaworker.kafka.OrderMessageCodec;
+import com.example.awesomepizzaworker.kafka.WireFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderMessageCodecTest {
+
+    /**
+     * Binary message written by AwesomePizza for order 42, see its OrderMessageCodecTest.
+     */
+    static final String AWESOME_PIZZA_BINARY = "01372a114f52442d3031485833514a355a384b324d0a4d61726768657269746101c0a4ecceb3ec8503";
+
+    @Test
+    public void testDecodesAwesomePizzaBinaryMessage() throws IOException {
+        PizzaDTO pizzaDTO = new BinaryOrderCodec().decode(HexFormat.of().parseHex(AWESOME_PIZZA_BINARY));
+
+        assertEquals(42L, pizzaDTO.getId());
+        assertEquals("ORD-01HX3QJ5Z8K2M", pizzaDTO.getOrderId());
+        assertEquals("Margherita", pizzaDTO.getPizzaType());
+        assertNull(pizzaDTO.getNote());
+        assertEquals("PENDING", pizzaDTO.getStatus());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000), pizzaDTO.getOrderTime());
+        assertNull(pizzaDTO.getUpdateTime());
+        assertEquals(AWESOME_PIZZA_BINARY, HexFormat.of().formatHex(new BinaryOrderCodec().encode(pizzaDTO)));
+    }
+
+    @Test
+    public void testStatusUpdateRoundTrip() throws IOException {
+        OrderMessageCodec codec = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY);
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("ORD-01HX3QJ5Z8K2M");
+        pizzaDTO.setStatus("COMPLETED");
+        pizzaDTO.setUpdateTime(LocalDateTime.of(2024, 5, 1, 12, 6, 0));
+
+        PizzaDTO decoded = codec.decode(codec.encode(pizzaDTO), WireFormat.BINARY);
+
+        assertEquals(pizzaDTO.getOrderId(), decoded.getOrderId());
+        assertEquals(pizzaDTO.getStatus(), decoded.getStatus());
+        assertEquals(pizzaDTO.getUpdateTime(), decoded.getUpdateTime());
+        assertNull(decoded.getId());
+        assertNull(decoded.getOrderTime());
+    }
+
+    @Test
+    public void testDecodesLegacyJsonMessage() throws IOException {
+        OrderMessageCodec codec = new OrderMessageCodec(new JsonOrderCodec(new ObjectMapper()), WireFormat.BINARY);
+        byte[] message = "{\"orderId\":\"ORD-1\",\"pizzaType\":\"Diavola\",\"status\":\"PENDING\",\"orderTime\":\"2024-05-01T12:00:00\"}"
+                .getBytes(StandardCharsets.UTF_8);
+
+        PizzaDTO pizzaDTO = codec.decode(message, WireFormat.JSON);
+
+        assertEquals("ORD-1", pizzaDTO.getOrderId());
+        assertEquals("Diavola", pizzaDTO.getPizzaType());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 12, 0), pizzaDTO.getOrderTime());
+    }
+
+    @Test
+    public void testJsonCodecWritesIsoTimestampsWithoutChangingSharedMapper() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonOrderCodec codec = new JsonOrderCodec(objectMapper);
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("ORD-1");
+        pizzaDTO.setUpdateTime(LocalDateTime.of(2024, 5, 1, 12, 6, 0, 500_000_000));
+
+        String json = new String(codec.encode(pizzaDTO), StandardCharsets.UTF_8);
+
+        assertTrue(json.contains("\"updateTime\":\"2024-05-01T12:06:00.5\""), json);
+        assertTrue(objectMapper.getRegisteredModuleIds().isEmpty());
+    }
+}
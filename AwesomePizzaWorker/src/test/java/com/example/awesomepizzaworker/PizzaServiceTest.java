@@ -6,7 +6,9 @@ import com.example.awesomepizzaworker.entity.OrderStatus;
 import com.example.awesomepizzaworker.error.DatabaseException;
 import com.example.awesomepizzaworker.kafka.KafkaProducer;
 import com.example.awesomepizzaworker.repository.PizzaRepository;
+import com.example.awesomepizzaworker.service.KitchenService;
 import com.example.awesomepizzaworker.service.PizzaService;
+import com.example.awesomepizzaworker.service.SeenOrderFilter;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,10 +16,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class PizzaServiceTest {
@@ -28,6 +37,12 @@ public class PizzaServiceTest {
     @Mock
     KafkaProducer kafkaProducer;
 
+    @Mock
+    KitchenService kitchenService;
+
+    @Mock
+    SeenOrderFilter seenOrderFilter;
+
     @Spy
     @InjectMocks
     PizzaService pizzaService;
@@ -43,12 +58,46 @@ public class PizzaServiceTest {
         pizzaDTO.setOrderId("order123");
         pizzaDTO.setStatus(OrderStatus.PENDING.name());
 
+        when(seenOrderFilter.mightContain("order123")).thenReturn(false);
+
+        pizzaService.processPendingPizzaOrder(pizzaDTO);
+
+        verify(pizzaService, times(1)).handleNewOrder(pizzaDTO);
+        verify(kitchenService, times(1)).startPreparation(any(PizzaDTO.class));
+        verify(pizzaService, never()).handleInProgressOrder(any());
+        verify(pizzaRepository, never()).findByOrderId(anyString());
+        verify(seenOrderFilter, times(1)).add("order123");
+    }
+
+    @Test
+    public void testProcessPendingPizzaOrder_FilterFalsePositive() throws JsonProcessingException {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("order123");
+        pizzaDTO.setStatus(OrderStatus.PENDING.name());
+
+        when(seenOrderFilter.mightContain("order123")).thenReturn(true);
         when(pizzaRepository.findByOrderId("order123")).thenReturn(Optional.empty());
 
         pizzaService.processPendingPizzaOrder(pizzaDTO);
 
         verify(pizzaService, times(1)).handleNewOrder(pizzaDTO);
-        verify(pizzaService, times(1)).handleInProgressOrder(any());
+        verify(seenOrderFilter, times(1)).recordLookup(false);
+    }
+
+    @Test
+    public void testProcessPendingPizzaOrder_RedeliveryUnknownToFilter() throws JsonProcessingException {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId("order123");
+        pizzaDTO.setStatus(OrderStatus.PENDING.name());
+
+        when(seenOrderFilter.mightContain("order123")).thenReturn(false);
+        when(pizzaRepository.save(any(Pizza.class))).thenThrow(new DataIntegrityViolationException("duplicate orderId"));
+        when(pizzaRepository.findByOrderId("order123")).thenReturn(Optional.of(new Pizza()));
+
+        pizzaService.processPendingPizzaOrder(pizzaDTO);
+
+        verify(kitchenService, never()).startPreparation(any(PizzaDTO.class));
+        verify(seenOrderFilter, times(1)).add("order123");
     }
 
     @Test
@@ -60,12 +109,60 @@ public class PizzaServiceTest {
         Pizza existingOrder = new Pizza();
         existingOrder.setOrderId("order123");
 
+        when(seenOrderFilter.mightContain("order123")).thenReturn(true);
         when(pizzaRepository.findByOrderId("order123")).thenReturn(Optional.of(existingOrder));
 
         pizzaService.processPendingPizzaOrder(pizzaDTO);
 
         verify(pizzaService, never()).handleNewOrder(any());
         verify(pizzaService, never()).handleInProgressOrder(any());
+        verify(seenOrderFilter, times(1)).recordLookup(true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testProcessPendingPizzaOrders_StoresNewOrdersInOneBatch() throws JsonProcessingException {
+        PizzaDTO first = pizzaDTO("order1", OrderStatus.PENDING);
+        PizzaDTO redelivered = pizzaDTO("order2", OrderStatus.PENDING);
+        PizzaDTO second = pizzaDTO("order3", OrderStatus.PENDING);
+        PizzaDTO inProgress = pizzaDTO("order4", OrderStatus.IN_PROGRESS);
+
+        when(seenOrderFilter.mightContain(anyString())).thenReturn(false);
+        when(seenOrderFilter.mightContain("order2")).thenReturn(true);
+        when(pizzaRepository.findByOrderId("order2")).thenReturn(Optional.of(new Pizza()));
+
+        int stored = pizzaService.processPendingPizzaOrders(List.of(first, redelivered, second, first, inProgress));
+
+        assertEquals(2, stored);
+        verify(pizzaRepository, times(1)).saveAllAndFlush(argThat(pizzas ->
+                ((Collection<Pizza>) pizzas).stream().map(Pizza::getOrderId).toList().equals(List.of("order1", "order3"))));
+        verify(pizzaRepository, never()).save(any());
+        verify(kitchenService, times(2)).startPreparation(any(PizzaDTO.class));
+        verify(seenOrderFilter, times(1)).add("order1");
+        verify(seenOrderFilter, times(1)).add("order3");
+        verify(pizzaService, times(1)).handleInProgressOrder(inProgress);
+    }
+
+    private PizzaDTO pizzaDTO(String orderId, OrderStatus status) {
+        PizzaDTO pizzaDTO = new PizzaDTO();
+        pizzaDTO.setOrderId(orderId);
+        pizzaDTO.setStatus(status.name());
+        return pizzaDTO;
+    }
+
+    @Test
+    public void testProcessPendingPizzaOrders_SendsOnlyAfterCommit() throws JsonProcessingException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            pizzaService.processPendingPizzaOrders(List.of(pizzaDTO("order4", OrderStatus.IN_PROGRESS)));
+
+            verify(kafkaProducer, never()).sendMessage(any(PizzaDTO.class));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(kafkaProducer, times(1)).sendMessage(argThat(pizzaDTO ->
+                    OrderStatus.COMPLETED.name().equals(pizzaDTO.getStatus())));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -95,8 +192,23 @@ public class PizzaServiceTest {
 
         verify(pizzaService, times(1)).createPizzaFromDTO(pizzaDTO);
         verify(pizzaService, times(1)).savePizza(newOrder);
-        verify(pizzaService, times(2)).sendMessage(any(PizzaDTO.class));
-        verify(pizzaService, times(1)).processOrder();
-        verify(pizzaService, times(1)).handleInProgressOrder(any());
+        verify(kitchenService, times(1)).startPreparation(any(PizzaDTO.class));
+        verify(pizzaService, never()).sendMessage(any(PizzaDTO.class));
+        verify(pizzaService, never()).handleInProgressOrder(any());
+    }
+
+    @Test
+    public void testHandleNewOrder_StartsPreparationOnlyAfterCommit() throws DatabaseException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            pizzaService.handleNewOrder(pizzaDTO("order5", OrderStatus.PENDING));
+
+            verify(kitchenService, never()).startPreparation(any(PizzaDTO.class));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(kitchenService, times(1)).startPreparation(argThat(pizzaDTO -> "order5".equals(pizzaDTO.getOrderId())));
+            verify(seenOrderFilter, times(1)).add("order5");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 }
@@ -0,0 +1,93 @@
+package com.example.awesomepizzaworker;
+
+import com.example.awesomepizzaworker.repository.PizzaRepository;
+import com.example.awesomepizzaworker.service.SeenOrderFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+public class SeenOrderFilterTest {
+
+    @Mock
+    PizzaRepository pizzaRepository;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testEveryOrderIsPossibleUntilRebuilt() {
+        SeenOrderFilter filter = new SeenOrderFilter(pizzaRepository, transactionManager, meterRegistry, 1000, 0.01);
+
+        assertTrue(filter.mightContain("ORD-1"));
+    }
+
+    @Test
+    public void testRebuildLoadsStoredOrdersWithoutFalseNegatives() {
+        when(pizzaRepository.streamAllOrderIds()).thenReturn(Stream.of("ORD-1", "ORD-2"));
+        SeenOrderFilter filter = new SeenOrderFilter(pizzaRepository, transactionManager, meterRegistry, 1000, 0.01);
+
+        filter.rebuild();
+        filter.add("ORD-3");
+
+        assertTrue(filter.mightContain("ORD-1"));
+        assertTrue(filter.mightContain("ORD-2"));
+        assertTrue(filter.mightContain("ORD-3"));
+        assertFalse(filter.mightContain("ORD-4"));
+        assertEquals(1, lookups("avoided"));
+    }
+
+    @Test
+    public void testFalsePositiveRateStaysNearConfiguredRate() {
+        when(pizzaRepository.streamAllOrderIds()).thenReturn(Stream.empty());
+        SeenOrderFilter filter = new SeenOrderFilter(pizzaRepository, transactionManager, meterRegistry, 10_000, 0.01);
+        filter.rebuild();
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("ORD-SEEN-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("ORD-SEEN-" + i));
+            if (filter.mightContain("ORD-NEW-" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+        assertEquals(10_000 - falsePositives, lookups("avoided"));
+    }
+
+    @Test
+    public void testLookupResultsAreCounted() {
+        SeenOrderFilter filter = new SeenOrderFilter(pizzaRepository, transactionManager, meterRegistry, 1000, 0.01);
+
+        filter.recordLookup(true);
+        filter.recordLookup(false);
+        filter.recordLookup(false);
+
+        assertEquals(1, lookups("duplicate"));
+        assertEquals(2, lookups("false_positive"));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("pizza.seen.filter.lookups").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,268 @@
+package adesso.it.awesomepizza.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test of the order round trip: POST /api/orders/place-order, order-topic, the worker kitchen,
+ * preparation-topic and the status update in AwesomePizza, observed through the order's Server-Sent Events stream.
+ * <p>
+ * Both applications run from their packaged jars, as separate processes, against an embedded Kafka broker.
+ * Orders are placed open-loop at a fixed rate and latency is measured from the scheduled placement time to the
+ * COMPLETED event, so a saturated system cannot hide its backlog by slowing the load down. Orders shed by admission
+ * control (429) are reported separately and excluded from the latencies.
+ * <p>
+ * Build both applications first ({@code mvn package -DskipTests} in each), then run {@code mvn test} here.
+ * Tuning: {@code -Dload.rate} (orders/s), {@code -Dload.duration} and {@code -Dload.warmup} (s),
+ * {@code -Dload.preparationTime}, {@code -Dload.timeout} (s) and extra application arguments in
+ * {@code -Dload.awesomePizzaArgs} and {@code -Dload.workerArgs}.
+ */
+public class OrderRoundTripLoadTest {
+
+    private static final int RATE = Integer.getInteger("load.rate", 50);
+    private static final int DURATION = Integer.getInteger("load.duration", 30);
+    private static final int WARMUP = Integer.getInteger("load.warmup", 10);
+    private static final int TIMEOUT = Integer.getInteger("load.timeout", 120);
+    private static final String PREPARATION_TIME = System.getProperty("load.preparationTime", "200ms");
+    private static final int PARTITIONS = 3;
+
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":\"([^\"]+)\"");
+    private static final String ORDER = "{\"pizzaType\":\"Load test\",\"note\":\"load\"}";
+
+    private static EmbeddedKafkaKraftBroker broker;
+    private static Process awesomePizza;
+    private static Process worker;
+    private static URI baseUri;
+    private static HttpClient client;
+
+    @BeforeAll
+    public static void startApplications() throws Exception {
+        broker = new EmbeddedKafkaKraftBroker(1, PARTITIONS, "order-topic", "preparation-topic");
+        broker.afterPropertiesSet();
+        String bootstrapServers = "--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString();
+
+        int port = freePort();
+        baseUri = URI.create("http://localhost:" + port);
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        awesomePizza = launch("AwesomePizza", "../AwesomePizza/target/AwesomePizza-0.0.1-SNAPSHOT.jar",
+                System.getProperty("load.awesomePizzaArgs", ""),
+                "--server.port=" + port, bootstrapServers,
+                "--kafka.topic.partitions=" + PARTITIONS,
+                "--logging.level.adesso.it.awesomepizza=WARN");
+        worker = launch("AwesomePizzaWorker", "../AwesomePizzaWorker/target/AwesomePizzaWorker-0.0.1-SNAPSHOT.jar",
+                System.getProperty("load.workerArgs", ""),
+                "--server.port=0", bootstrapServers,
+                "--kafka.topic.partitions=" + PARTITIONS,
+                "--kitchen.default-preparation-time=" + PREPARATION_TIME,
+                "--logging.level.com.example.awesomepizzaworker=WARN");
+        awaitRoundTrip();
+    }
+
+    @AfterAll
+    public static void stopApplications() throws InterruptedException {
+        stop(awesomePizza);
+        stop(worker);
+        if (broker != null) {
+            broker.destroy();
+        }
+    }
+
+    @Test
+    public void orderRoundTripUnderLoad() throws InterruptedException {
+        int warmupOrders = RATE * WARMUP;
+        int orders = warmupOrders + RATE * DURATION;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / RATE;
+        long[] scheduledAt = new long[orders];
+        long[] completedAt = new long[orders];
+        boolean[] rejected = new boolean[orders];
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] roundTrips = new CompletableFuture<?>[orders];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            int index = i;
+            scheduledAt[i] = start + i * intervalNanos;
+            LockSupport.parkNanos(scheduledAt[i] - System.nanoTime());
+            roundTrips[i] = placeOrder()
+                    .thenCompose(orderId -> orderId == null
+                            ? CompletableFuture.completedFuture((Boolean) null)
+                            : awaitCompleted(orderId))
+                    .whenComplete((completed, error) -> {
+                        if (error == null && completed == null) {
+                            rejected[index] = true;
+                        } else if (error == null && completed) {
+                            completedAt[index] = System.nanoTime();
+                        } else {
+                            failures.incrementAndGet();
+                        }
+                    });
+        }
+        long placementEnd = System.nanoTime();
+        try {
+            CompletableFuture.allOf(roundTrips).get(TIMEOUT, TimeUnit.SECONDS);
+        } catch (TimeoutException | ExecutionException ex) {
+            // Counted below: every order that did not complete is a failure.
+        }
+
+        long[] latencies = new long[orders - warmupOrders];
+        long lastCompletion = 0;
+        int completed = 0;
+        int shed = 0;
+        for (int i = warmupOrders; i < orders; i++) {
+            if (rejected[i]) {
+                shed++;
+            } else if (completedAt[i] != 0) {
+                latencies[completed++] = completedAt[i] - scheduledAt[i];
+                lastCompletion = Math.max(lastCompletion, completedAt[i]);
+            }
+        }
+        latencies = Arrays.copyOf(latencies, completed);
+        Arrays.sort(latencies);
+
+        int measured = orders - warmupOrders;
+        System.out.printf("%nOrder round trip, %d orders/s for %d s after %d s warm-up, preparation time %s%n",
+                RATE, DURATION, WARMUP, PREPARATION_TIME);
+        System.out.printf("placement rate   %10.1f orders/s%n", orders * 1e9 / (placementEnd - start));
+        if (completed > 0) {
+            System.out.printf("throughput       %10.1f orders/s%n",
+                    completed * 1e9 / (lastCompletion - scheduledAt[warmupOrders]));
+            System.out.printf("latency p50      %10.1f ms%n", percentile(latencies, 0.50));
+            System.out.printf("latency p95      %10.1f ms%n", percentile(latencies, 0.95));
+            System.out.printf("latency p99      %10.1f ms%n", percentile(latencies, 0.99));
+            System.out.printf("latency max      %10.1f ms%n", latencies[completed - 1] / 1e6);
+        }
+        System.out.printf("completed        %10d of %d%n", completed, measured);
+        System.out.printf("rejected (429)   %10d%n", shed);
+        System.out.printf("failed           %10d (including warm-up)%n%n", failures.get());
+
+        assertEquals(measured, completed + shed, "orders not completed within " + TIMEOUT + " s");
+        assertEquals(0, failures.get());
+    }
+
+    /**
+     * Places an order.
+     *
+     * @return A future with the order ID, or null if the order was rejected by admission control (429).
+     */
+    private static CompletableFuture<String> placeOrder() {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/orders/place-order"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(ORDER))
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString()).thenApply(response -> {
+            if (response.statusCode() == 429) {
+                return null;
+            }
+            Matcher matcher = ORDER_ID.matcher(response.body());
+            if (response.statusCode() != 201 || !matcher.find()) {
+                throw new IllegalStateException("Order not placed: " + response.statusCode() + " " + response.body());
+            }
+            return matcher.group(1);
+        });
+    }
+
+    /**
+     * Subscribes to the status events of an order. AwesomePizza ends the stream once the order is COMPLETED.
+     *
+     * @return A future telling whether the stream ended with the COMPLETED event.
+     */
+    private static CompletableFuture<Boolean> awaitCompleted(String orderId) {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/api/orders/" + orderId + "/events"))
+                .header("Accept", "text/event-stream")
+                .GET()
+                .build();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> response.statusCode() == 200 && response.body().contains("\"status\":\"COMPLETED\""));
+    }
+
+    /**
+     * Places probe orders until one makes the whole round trip, which means both applications are up and their
+     * listener containers own the topic partitions.
+     */
+    private static void awaitRoundTrip() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(180);
+        while (System.nanoTime() < deadline) {
+            assertTrue(awesomePizza.isAlive(), "AwesomePizza exited, see target/load-test/AwesomePizza.log");
+            assertTrue(worker.isAlive(), "AwesomePizzaWorker exited, see target/load-test/AwesomePizzaWorker.log");
+            CompletableFuture<Boolean> probe = placeOrder().thenCompose(orderId -> orderId == null
+                    ? CompletableFuture.completedFuture(false)
+                    : awaitCompleted(orderId));
+            try {
+                if (probe.get(5, TimeUnit.SECONDS)) {
+                    return;
+                }
+            } catch (TimeoutException | ExecutionException ex) {
+                probe.cancel(true);
+                Thread.sleep(1000);
+            }
+        }
+        throw new IllegalStateException("No order completed the round trip within 180 s");
+    }
+
+    private static Process launch(String name, String jar, String extraArgs, String... args) throws IOException {
+        Path jarPath = Path.of(jar);
+        assertTrue(Files.exists(jarPath), jarPath.toAbsolutePath() + " not found, run 'mvn package -DskipTests' in " + name);
+        Path log = Path.of("target", "load-test", name + ".log");
+        Files.createDirectories(log.getParent());
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("-jar");
+        command.add(jarPath.toString());
+        command.addAll(Arrays.asList(args));
+        if (!extraArgs.isBlank()) {
+            command.addAll(Arrays.asList(extraArgs.trim().split("\\s+")));
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        if (process == null) {
+            return;
+        }
+        process.destroy();
+        if (!process.waitFor(20, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double percentile(long[] sortedLatencies, double percentile) {
+        int index = (int) Math.ceil(sortedLatencies.length * percentile) - 1;
+        return sortedLatencies[Math.max(0, index)] / 1e6;
+    }
+}